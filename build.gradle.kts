@@ -27,6 +27,7 @@ plugins {
     alias(libs.plugins.gradle.lombok)
     alias(libs.plugins.gradle.gitProperties)
     alias(libs.plugins.gradle.frontend)
+    alias(libs.plugins.gradle.jmh)
 }
 
 allprojects {
@@ -47,9 +48,11 @@ allprojects {
 
 dependencies {
     implementation(libs.kotlinx.json)
+    implementation(libs.kotlinx.cbor)
     implementation(libs.kotlinx.datetime)
     implementation(libs.kotlinx.coroutines.reactor)
     implementation(libs.spring.boot.web)
+    implementation(libs.spring.boot.actuator)
     implementation(libs.mysqlConnector)
     implementation(libs.spring.cloud)
     implementation(libs.discord4j)
@@ -103,6 +106,10 @@ tasks.getByName<Jar>("jar") {
     enabled = false
 }
 
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+}
+
 kotlinLombok {
     lombokConfigurationFile(file("lombok.config"))
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.repository;
+
+import com.faendir.zachtronics.bot.sc.model.ScScore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** frontier checks of a submission against the archive, the linear scan is what archiving did before the index */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DominanceIndexBenchmark {
+    private static final int CANDIDATES = 64;
+
+    @Param({"100", "500", "2000"})
+    int size;
+
+    /** with equal cycles the first metric doesn't narrow down the rows to scan, the worst case of the index */
+    @Param({"spread", "equalCycles"})
+    String distribution;
+
+    private List<ScScore> scores;
+    private DominanceIndex index;
+    private ScScore[] candidates;
+    private int[][] candidateMetrics;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        scores = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            scores.add(randomScore(random, distribution));
+        }
+        index = DominanceIndex.of(scores, s -> 0, DominanceIndexBenchmark::metrics);
+        candidates = new ScScore[CANDIDATES];
+        candidateMetrics = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = randomScore(random, distribution);
+            candidateMetrics[i] = metrics(candidates[i]);
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        for (ScScore candidate : candidates) {
+            int dominating = -1;
+            List<Integer> dominated = new ArrayList<>();
+            for (int i = 0; i < scores.size(); i++) {
+                int r = frontierCompare(candidate, scores.get(i));
+                if (r > 0) {
+                    dominating = i;
+                    break;
+                }
+                else if (r < 0) {
+                    dominated.add(i);
+                }
+            }
+            blackhole.consume(dominating);
+            blackhole.consume(dominated);
+        }
+    }
+
+    @Benchmark
+    public void dominanceIndex(Blackhole blackhole) {
+        for (int[] metrics : candidateMetrics) {
+            int dominating = index.firstDominating(0, metrics);
+            blackhole.consume(dominating);
+            if (dominating == -1)
+                blackhole.consume(index.dominated(0, metrics));
+        }
+    }
+
+    @Benchmark
+    public DominanceIndex build() {
+        return DominanceIndex.of(scores, s -> 0, DominanceIndexBenchmark::metrics);
+    }
+
+    /** scores spread around a trade-off surface, like a real frontier with some dominated stragglers */
+    private static ScScore randomScore(Random random, String distribution) {
+        int cycles = distribution.equals("equalCycles") ? 500 : 50 + random.nextInt(10_000);
+        int reactors = 1 + random.nextInt(6);
+        int symbols = Math.max(8, 400 - cycles / 30 - reactors * 20 + random.nextInt(distribution.equals("equalCycles") ? 300 : 60));
+        return new ScScore(cycles, reactors, symbols, random.nextInt(10) == 0, random.nextInt(4) == 0);
+    }
+
+    private static int[] metrics(ScScore score) {
+        return new int[]{score.getCycles(), score.getReactors(), score.getSymbols(),
+                         score.isBugged() ? 1 : 0, score.isPrecognitive() ? 1 : 0};
+    }
+
+    /** the per-game comparison the archive used before {@link DominanceIndex} */
+    private static int frontierCompare(ScScore s1, ScScore s2) {
+        int r1 = Integer.compare(s1.getCycles(), s2.getCycles());
+        int r2 = Integer.compare(s1.getReactors(), s2.getReactors());
+        int r3 = Integer.compare(s1.getSymbols(), s2.getSymbols());
+        int r4 = Boolean.compare(s1.isBugged(), s2.isBugged());
+        int r5 = Boolean.compare(s1.isPrecognitive(), s2.isPrecognitive());
+
+        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0 && r5 <= 0)
+            return -1;
+        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0 && r5 >= 0)
+            return 1;
+        else
+            return 0;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.om.model
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/** frontier manifolds of a puzzle when loading, the pairwise scan is what loading did before [OmScoreManifold.frontierOf] */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+open class OmFrontierBenchmark {
+    @Param("100", "1000", "10000")
+    @JvmField
+    var size = 0
+
+    private lateinit var scores: List<OmScore>
+    private val manifolds = OmScoreManifold.entries.filter { it.supportedTypes.contains(OmType.NORMAL) }
+
+    @Setup
+    fun setup() {
+        val random = Random(size)
+        scores = List(size) { randomScore(random) }
+    }
+
+    @Benchmark
+    fun pairwise(): Int {
+        var frontier = 0
+        for (score in scores) {
+            manifolds@ for (manifold in manifolds.filter { it.supportsScore(score) }) {
+                for (other in scores) {
+                    val compares = manifold.frontierCompare(score, other)
+                    if (compares.all { it >= 0 } && compares.any { it > 0 })
+                        continue@manifolds
+                }
+                frontier++
+            }
+        }
+        return frontier
+    }
+
+    @Benchmark
+    fun skyline(): Int = manifolds.sumOf { manifold -> manifold.frontierOf(scores).count { it } }
+
+    /** trade-offs between cost, cycles and area like a real frontier, with some dominated stragglers */
+    private fun randomScore(random: Random): OmScore {
+        val cost = 20 + random.nextInt(300)
+        val cycles = 20 + random.nextInt(500)
+        val area = maxOf(4, 400 - cost / 2 - cycles / 3 + random.nextInt(60))
+        return OmScore(
+            cost = cost, instructions = 10 + random.nextInt(200),
+            overlap = random.nextInt(10) == 0, trackless = random.nextInt(4) == 0,
+            cycles = cycles, area = area,
+            height = 2 + random.nextInt(20), width = 2 + random.nextInt(40) / 2.0, boundingHex = 2 + random.nextInt(20),
+            rate = null, areaINF = null, heightINF = null, widthINF = null, boundingHexINF = null,
+        )
+    }
+}
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.cw.model.*;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import lombok.AccessLevel;
@@ -44,6 +45,7 @@ import static com.faendir.zachtronics.bot.cw.model.CwCategory.SIZE;
 public class CwSolutionRepository extends AbstractSolutionRepository<CwCategory, CwPuzzle, CwScore, CwSubmission, CwRecord, CwSolution> {
     private final CwCategory[][] wikiCategories = {{SIZE}, {FOOTPRINT}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.LASTCALLBBS;
 
     @Qualifier("cwRepository")
@@ -65,23 +67,8 @@ public class CwSolutionRepository extends AbstractSolutionRepository<CwCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull CwScore s1, @NotNull CwScore s2) {
-        int r1 = Integer.compare(s1.getWidth(), s2.getWidth());
-        int r2 = Integer.compare(s1.getHeight(), s2.getHeight());
-        int r3 = Integer.compare(s1.getFootprint(), s2.getFootprint());
-
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull CwScore score) {
+        return new int[]{score.getWidth(), score.getHeight(), score.getFootprint()};
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.cw.model.CwCategory;
 import com.faendir.zachtronics.bot.cw.model.CwGroup;
 import com.faendir.zachtronics.bot.cw.model.CwPuzzle;
 import com.faendir.zachtronics.bot.cw.model.CwRecord;
+import com.faendir.zachtronics.bot.cw.model.CwSubmission;
 import com.faendir.zachtronics.bot.cw.repository.CwSolutionRepository;
 import com.faendir.zachtronics.bot.cw.rest.dto.CwCategoryDTO;
 import com.faendir.zachtronics.bot.cw.rest.dto.CwGroupDTO;
@@ -27,17 +28,26 @@ import com.faendir.zachtronics.bot.cw.rest.dto.CwPuzzleDTO;
 import com.faendir.zachtronics.bot.cw.rest.dto.CwRecordDTO;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.rest.GameRestController;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/cw")
@@ -81,6 +91,15 @@ public class CwController implements GameRestController<CwGroupDTO, CwPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<CwRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        CwCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : CwRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public CwRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         CwPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +111,15 @@ public class CwController implements GameRestController<CwGroupDTO, CwPuzzleDTO,
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<CwSubmission>> submissions = CwSubmission.fromData(new String(solution.getBytes(), StandardCharsets.UTF_8), author);
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static CwPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(CwPuzzle.values())
                      .filter(p -> p.name().equalsIgnoreCase(puzzleId))
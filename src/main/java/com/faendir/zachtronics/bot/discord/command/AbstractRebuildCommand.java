@@ -21,6 +21,7 @@ import com.faendir.zachtronics.bot.discord.command.option.CommandOption;
 import com.faendir.zachtronics.bot.discord.embed.MultiMessageSafeEmbedMessageBuilder;
 import com.faendir.zachtronics.bot.discord.embed.SafeMessageBuilder;
 import com.faendir.zachtronics.bot.model.Puzzle;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import lombok.Getter;
@@ -28,8 +29,12 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AbstractRebuildCommand<P extends Puzzle<?>> extends Command.BasicLeaf {
+    /** progress edits are throttled to this interval, so they don't run into discord's rate limits */
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     @Getter
     private final String name = "rebuild";
     @Getter
@@ -41,12 +46,25 @@ public abstract class AbstractRebuildCommand<P extends Puzzle<?>> extends Comman
     @Override
     public SafeMessageBuilder handleEvent(@NotNull ChatInputInteractionEvent event) {
         P maybePuzzle = getPuzzleOption().get(event);
-        getRepository().rebuildRedditLeaderboard(maybePuzzle);
+        getRepository().rebuildRedditLeaderboard(maybePuzzle, progressReporter(event));
         return new MultiMessageSafeEmbedMessageBuilder()
             .title((maybePuzzle == null ? "Rebuilt all wiki" : "Rebuilt wiki section of puzzle " + maybePuzzle.getDisplayName()))
             .color(Colors.SUCCESS);
     }
 
+    /** edits the deferred reply with the number of synced pages, the final reply overwrites it */
+    @NotNull
+    private static RedditWikiSync.Progress progressReporter(@NotNull ChatInputInteractionEvent event) {
+        long[] lastReport = {System.nanoTime()};
+        return (done, total) -> {
+            long now = System.nanoTime();
+            if (done < total && now - lastReport[0] >= PROGRESS_INTERVAL_NANOS) {
+                lastReport[0] = now;
+                event.editReply("Rebuilding wiki: " + done + "/" + total + " pages synced").subscribe();
+            }
+        };
+    }
+
     @NotNull
     protected abstract CommandOption<String, P> getPuzzleOption();
 
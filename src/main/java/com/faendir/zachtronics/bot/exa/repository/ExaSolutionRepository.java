@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.exa.model.*;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import com.faendir.zachtronics.bot.utils.Markdown;
@@ -30,8 +31,6 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -45,6 +44,7 @@ import static com.faendir.zachtronics.bot.exa.model.ExaCategory.*;
 public class ExaSolutionRepository extends AbstractSolutionRepository<ExaCategory, ExaPuzzle, ExaScore, ExaSubmission, ExaRecord, ExaSolution> {
     private final ExaCategory[][] wikiCategories = {{CS, CA}, {SC, SA}, {AC, AS}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.EXAPUNKS;
 
     @Qualifier("exaRepository")
@@ -53,6 +53,16 @@ public class ExaSolutionRepository extends AbstractSolutionRepository<ExaCategor
     private final Function<String[], ExaSolution> solUnmarshaller = ExaSolution::unmarshal;
     private final Comparator<ExaSolution> archiveComparator = Comparator.comparing(ExaSolution::getScore, ExaCategory.CS.getScoreComparator());
     private final List<ExaPuzzle> trackedPuzzles = List.of(ExaPuzzle.values());
+    private final ExaCategory[][] cheesyCategories = {{cCS, cCA}, {cSC, cSA}, {cAC, cAS}};
+    /** cheesy table rows of every puzzle as of the last render, guarded by itself */
+    private final Map<ExaPuzzle, CheesyRows> cheesyRows = new EnumMap<>(ExaPuzzle.class);
+
+    /**
+     * @param solutions all solutions of the puzzle the rows were rendered from
+     * @param lines empty if there is no cheesy solution
+     */
+    private record CheesyRows(@NotNull List<ExaSolution> solutions, @NotNull List<String> lines) {
+    }
 
     @Override
     protected @NotNull String wikiPageName(ExaPuzzle puzzle) {
@@ -65,23 +75,8 @@ public class ExaSolutionRepository extends AbstractSolutionRepository<ExaCategor
     }
 
     @Override
-    protected int frontierCompare(@NotNull ExaScore s1, @NotNull ExaScore s2) {
-        int r1 = Integer.compare(s1.getCycles(), s2.getCycles());
-        int r2 = Integer.compare(s1.getSize(), s2.getSize());
-        int r3 = Integer.compare(s1.getActivity(), s2.getActivity());
-        int r4 = Boolean.compare(s1.isCheesy(), s2.isCheesy());
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull ExaScore score) {
+        return new int[]{score.getCycles(), score.getSize(), score.getActivity(), score.isCheesy() ? 1 : 0};
     }
 
     /** allow same-score solution changes only if you are the original author */
@@ -93,67 +88,54 @@ public class ExaSolutionRepository extends AbstractSolutionRepository<ExaCategor
     }
 
     @Override
-    protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull ExaPuzzle puzzle,
-                                           GitRepository.@NotNull ReadWriteAccess access, @NotNull List<ExaSolution> solutions) {
-        updateRedditLeaderboard(lines, puzzle, access, solutions, true);
-    }
-    
-    @Override
-    protected List<String> rebuildRedditPage(String page, GitRepository.ReadWriteAccess access) throws IOException {
-        List<String> lines = readRedditWiki(page);
-        for (ExaPuzzle puzzle : trackedPuzzles) {
-            Path puzzlePath = getPuzzlePath(access, puzzle);
-            List<ExaSolution> solutions = unmarshalSolutions(puzzlePath);
-            updateRedditLeaderboard(lines, puzzle, access, solutions, false);
-        }
-        rebuildCheeseTable(lines, access);
+    protected List<String> rebuildRedditPage(String page, @NotNull List<String> lines, GitRepository.@NotNull Snapshot snapshot) {
+        super.rebuildRedditPage(page, lines, snapshot);
+        rebuildCheeseTable(lines, snapshot);
         return lines;
     }
 
-    protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull ExaPuzzle puzzle,
-                                           GitRepository.@NotNull ReadWriteAccess access, @NotNull List<ExaSolution> solutions,
-                                           boolean doCheese) {
-        super.updateRedditLeaderboard(lines, puzzle, access, solutions);
+    /** replaces the cheesy section with the cached rows of every puzzle, only puzzles whose solutions changed are rendered again */
+    private void rebuildCheeseTable(@NotNull List<String> lines, GitRepository.@NotNull Snapshot snapshot) {
+        final String anchorPoint = "### Cheesy solutions";
+        lines.subList(lines.indexOf(anchorPoint) + 4, lines.size()).clear();
 
-        if (doCheese && solutions.stream().anyMatch(s -> s.getScore().isCheesy())) {
-            try {
-                rebuildCheeseTable(lines, access);
-            }
-            catch (IOException e) {
-                throw new UncheckedIOException(e);
+        synchronized (cheesyRows) {
+            for (ExaPuzzle puzzle : trackedPuzzles) {
+                List<ExaSolution> solutions = unmarshalSolutions(snapshot, puzzle);
+                CheesyRows rows = cheesyRows.get(puzzle);
+                if (rows == null || (rows.solutions() != solutions && !rows.solutions().equals(solutions))) {
+                    rows = makeCheesyRows(puzzle, getPuzzlePath(snapshot, puzzle), solutions);
+                    cheesyRows.put(puzzle, rows);
+                }
+                lines.addAll(rows.lines());
             }
         }
     }
 
-    private void rebuildCheeseTable(@NotNull List<String> lines, GitRepository.ReadWriteAccess access) throws IOException {
-        final String anchorPoint = "### Cheesy solutions";
-        lines.subList(lines.indexOf(anchorPoint) + 4, lines.size()).clear();
-        ListIterator<String> it = lines.listIterator(lines.size());
-
-        ExaCategory[][] cheesyCategories = {{cCS, cCA}, {cSC, cSA}, {cAC, cAS}};
-        for (ExaPuzzle puzzle : trackedPuzzles) {
-            Path puzzlePath = getPuzzlePath(access, puzzle);
-            List<ExaSolution> solutions = unmarshalSolutions(puzzlePath);
-            solutions.removeIf(s -> !s.getScore().isCheesy());
-
-            if (solutions.isEmpty())
-                continue; // there is no cheesy solve at all
-
-            Map<ExaCategory, ExaRecord> recordMap = new EnumMap<>(ExaCategory.class);
-            for (ExaSolution solution : solutions) {
-                ExaRecord record = solution.extendToRecord(puzzle,
-                                                           makeArchiveLink(puzzle, solution.getScore()),
-                                                           makeArchivePath(puzzlePath, solution.getScore()));
-                for (ExaCategory category : solution.getCategories()) {
-                    recordMap.put(category, record);
-                }
+    @NotNull
+    private CheesyRows makeCheesyRows(@NotNull ExaPuzzle puzzle, @NotNull Path puzzlePath, @NotNull List<ExaSolution> solutions) {
+        List<ExaSolution> cheesySolutions = solutions.stream()
+                                                     .filter(s -> s.getScore().isCheesy())
+                                                     .toList();
+        if (cheesySolutions.isEmpty())
+            return new CheesyRows(solutions, List.of()); // there is no cheesy solve at all
+
+        Map<ExaCategory, ExaRecord> recordMap = new EnumMap<>(ExaCategory.class);
+        for (ExaSolution solution : cheesySolutions) {
+            ExaRecord record = solution.extendToRecord(puzzle,
+                                                       makeArchiveLink(puzzle, solution.getScore()),
+                                                       makeArchivePath(puzzlePath, solution.getScore()));
+            for (ExaCategory category : solution.getCategories()) {
+                recordMap.put(category, record);
             }
-
-            String link = puzzle.getLink() + "?visualizerFilterExa-" + puzzle.name() + ".modifiers.cheesy=true";
-            String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link);
-            addPuzzleLines(it, puzzle, cheesyCategories, recordMap, puzzleHeader);
-            it.add("|");
         }
+
+        List<String> lines = new ArrayList<>();
+        String link = puzzle.getLink() + "?visualizerFilterExa-" + puzzle.name() + ".modifiers.cheesy=true";
+        String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link);
+        addPuzzleLines(lines.listIterator(), puzzle, cheesyCategories, recordMap, puzzleHeader);
+        lines.add("|");
+        return new CheesyRows(solutions, List.copyOf(lines));
     }
 
     @Override
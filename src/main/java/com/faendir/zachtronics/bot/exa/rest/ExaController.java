@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.exa.model.ExaCategory;
 import com.faendir.zachtronics.bot.exa.model.ExaGroup;
 import com.faendir.zachtronics.bot.exa.model.ExaPuzzle;
 import com.faendir.zachtronics.bot.exa.model.ExaRecord;
+import com.faendir.zachtronics.bot.exa.model.ExaSubmission;
 import com.faendir.zachtronics.bot.exa.repository.ExaSolutionRepository;
 import com.faendir.zachtronics.bot.exa.rest.dto.ExaCategoryDTO;
 import com.faendir.zachtronics.bot.exa.rest.dto.ExaGroupDTO;
@@ -27,17 +28,26 @@ import com.faendir.zachtronics.bot.exa.rest.dto.ExaPuzzleDTO;
 import com.faendir.zachtronics.bot.exa.rest.dto.ExaRecordDTO;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.rest.GameRestController;
+import com.faendir.zachtronics.bot.validation.ValidationException;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/exa")
@@ -81,6 +91,15 @@ public class ExaController implements GameRestController<ExaGroupDTO, ExaPuzzleD
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<ExaRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        ExaCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : ExaRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public ExaRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         ExaPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +111,21 @@ public class ExaController implements GameRestController<ExaGroupDTO, ExaPuzzleD
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution, @RequestParam boolean cheesy,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<ExaSubmission>> submissions;
+        try {
+            submissions = List.of(new ValidationResult.Valid<>(ExaSubmission.fromData(solution.getBytes(), cheesy, author, null)));
+        }
+        catch (ValidationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static ExaPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(ExaPuzzle.values())
                      .filter(p -> p.name().equalsIgnoreCase(puzzleId))
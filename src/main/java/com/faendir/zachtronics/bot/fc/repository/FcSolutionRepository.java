@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.fc.model.*;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import lombok.AccessLevel;
@@ -46,6 +47,7 @@ public class FcSolutionRepository extends AbstractSolutionRepository<FcCategory,
                                                    {STC, SCW, SWT},
                                                    {WTC, WCS, WST}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.LASTCALLBBS;
 
     @Qualifier("fcRepository")
@@ -66,24 +68,8 @@ public class FcSolutionRepository extends AbstractSolutionRepository<FcCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull FcScore s1, @NotNull FcScore s2) {
-        int r1 = Integer.compare(s1.getCost(), s2.getCost());
-        int r2 = Integer.compare(s1.getTime(), s2.getTime());
-        int r3 = Integer.compare(s1.getSumTimes(), s2.getSumTimes());
-        int r4 = Integer.compare(s1.getWires(), s2.getWires());
-
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull FcScore score) {
+        return new int[]{score.getCost(), score.getTime(), score.getSumTimes(), score.getWires()};
     }
 
     @Override
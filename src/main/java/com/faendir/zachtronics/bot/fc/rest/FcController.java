@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.fc.model.FcCategory;
 import com.faendir.zachtronics.bot.fc.model.FcGroup;
 import com.faendir.zachtronics.bot.fc.model.FcPuzzle;
 import com.faendir.zachtronics.bot.fc.model.FcRecord;
+import com.faendir.zachtronics.bot.fc.model.FcSubmission;
 import com.faendir.zachtronics.bot.fc.repository.FcSolutionRepository;
 import com.faendir.zachtronics.bot.fc.rest.dto.FcCategoryDTO;
 import com.faendir.zachtronics.bot.fc.rest.dto.FcGroupDTO;
@@ -27,17 +28,25 @@ import com.faendir.zachtronics.bot.fc.rest.dto.FcPuzzleDTO;
 import com.faendir.zachtronics.bot.fc.rest.dto.FcRecordDTO;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.rest.GameRestController;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/fc")
@@ -81,6 +90,15 @@ public class FcController implements GameRestController<FcGroupDTO, FcPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<FcRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        FcCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : FcRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public FcRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         FcPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +110,15 @@ public class FcController implements GameRestController<FcGroupDTO, FcPuzzleDTO,
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<FcSubmission>> submissions = FcSubmission.fromData(solution.getBytes(), author);
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static FcPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(FcPuzzle.values())
                      .filter(p -> p.name().equalsIgnoreCase(puzzleId))
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.fp.model.*;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import lombok.AccessLevel;
@@ -44,6 +45,7 @@ import static com.faendir.zachtronics.bot.fp.model.FpCategory.*;
 public class FpSolutionRepository extends AbstractSolutionRepository<FpCategory, FpPuzzle, FpScore, FpSubmission, FpRecord, FpSolution> {
     private final FpCategory[][] wikiCategories = {{RCF, RFC}, {CRF, CFR}, {FRC, FCR}, {wRCF, wFRC}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.LASTCALLBBS;
 
     @Qualifier("fpRepository")
@@ -64,25 +66,14 @@ public class FpSolutionRepository extends AbstractSolutionRepository<FpCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull FpScore s1, @NotNull FpScore s2) {
-        int r1 = Integer.compare(s1.getRules(), s2.getRules());
-        int r2 = Integer.compare(s1.getConditionalRules(), s2.getConditionalRules());
-        int r3 = Integer.compare(s1.getFrames(), s2.getFrames());
-        // waste is a special boy, the metric has no direction, so different waste = uncomparable
-        int r4 = Integer.compare(s1.getWaste(), s2.getWaste());
+    protected int @NotNull [] frontierMetrics(@NotNull FpScore score) {
+        return new int[]{score.getRules(), score.getConditionalRules(), score.getFrames()};
+    }
 
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 == 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 == 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    /** waste is a special boy, the metric has no direction, so different waste = uncomparable */
+    @Override
+    protected int frontierPartition(@NotNull FpScore score) {
+        return score.getWaste();
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.fp.model.FpCategory;
 import com.faendir.zachtronics.bot.fp.model.FpGroup;
 import com.faendir.zachtronics.bot.fp.model.FpPuzzle;
 import com.faendir.zachtronics.bot.fp.model.FpRecord;
+import com.faendir.zachtronics.bot.fp.model.FpSubmission;
 import com.faendir.zachtronics.bot.fp.repository.FpSolutionRepository;
 import com.faendir.zachtronics.bot.fp.rest.dto.FpCategoryDTO;
 import com.faendir.zachtronics.bot.fp.rest.dto.FpGroupDTO;
@@ -27,17 +28,26 @@ import com.faendir.zachtronics.bot.fp.rest.dto.FpPuzzleDTO;
 import com.faendir.zachtronics.bot.fp.rest.dto.FpRecordDTO;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.rest.GameRestController;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/fp")
@@ -81,6 +91,15 @@ public class FpController implements GameRestController<FpGroupDTO, FpPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<FpRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        FpCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : FpRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public FpRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         FpPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +111,15 @@ public class FpController implements GameRestController<FpGroupDTO, FpPuzzleDTO,
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<FpSubmission>> submissions = FpSubmission.fromData(new String(solution.getBytes(), StandardCharsets.UTF_8), author);
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static FpPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(FpPuzzle.values())
                      .filter(p -> p.name().equalsIgnoreCase(puzzleId))
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.inf.discord;
+
+import com.faendir.zachtronics.bot.discord.command.AbstractStatsCommand;
+import com.faendir.zachtronics.bot.discord.command.option.CommandOption;
+import com.faendir.zachtronics.bot.discord.command.option.CommandOptionBuilder;
+import com.faendir.zachtronics.bot.discord.command.option.OptionHelpersKt;
+import com.faendir.zachtronics.bot.inf.IfQualifier;
+import com.faendir.zachtronics.bot.inf.model.IfCategory;
+import com.faendir.zachtronics.bot.inf.model.IfPuzzle;
+import com.faendir.zachtronics.bot.inf.model.IfRecord;
+import com.faendir.zachtronics.bot.inf.model.IfScore;
+import com.faendir.zachtronics.bot.inf.model.IfSubmission;
+import com.faendir.zachtronics.bot.inf.repository.IfSolutionRepository;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Component
+@IfQualifier
+public class IfStatsCommand extends AbstractStatsCommand<IfCategory, IfPuzzle, IfSubmission, IfRecord> {
+    private final CommandOption<String, String> solutionOption = OptionHelpersKt.dataLinkOptionBuilder("solution")
+            .description("Link or `m1` to scrape it from your last message.")
+            .required()
+            .build();
+    private final CommandOption<String, IfScore> scoreOption = CommandOptionBuilder.string("score")
+            .description("Score of the solution in ccc/fff/bbb[/OGF] format")
+            .convert((event, score) -> {
+                IfScore ifScore = IfScore.parseScore(score);
+                if (ifScore != null)
+                    return ifScore;
+                throw new IllegalArgumentException("Invalid score: " + score);
+            })
+            .build();
+    @Getter
+    private final List<CommandOption<?, ?>> options = List.of(solutionOption, scoreOption);
+    @Getter
+    private final IfSolutionRepository repository;
+
+    @NotNull
+    @Override
+    public Collection<ValidationResult<IfSubmission>> parseSubmissions(@NotNull ChatInputInteractionEvent event) {
+        boolean isAdmin = IfSecured.WIKI_ADMINS_ONLY.hasExecutionPermission(event);
+        return IfSubmission.fromLink(solutionOption.get(event), authorName(event), scoreOption.get(event), null, isAdmin);
+    }
+}
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.inf.model.*;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import lombok.AccessLevel;
@@ -46,6 +47,7 @@ public class IfSolutionRepository extends AbstractSolutionRepository<IfCategory,
                                                    {FC, FB, FIC, FIB},
                                                    {BC, BF, BNC, BNF}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.INFINIFACTORY;
 
     @Qualifier("ifRepository")
@@ -71,25 +73,9 @@ public class IfSolutionRepository extends AbstractSolutionRepository<IfCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull IfScore s1, @NotNull IfScore s2) {
-        int r1 = Integer.compare(s1.getCycles(), s2.getCycles());
-        int r2 = Integer.compare(s1.getFootprint(), s2.getFootprint());
-        int r3 = Integer.compare(s1.getBlocks(), s2.getBlocks());
-        int r4 = Boolean.compare(s1.isOutOfBounds(), s2.isOutOfBounds());
-        int r5 = Boolean.compare(s1.usesGRA(), s2.usesGRA());
-        int r6 = Boolean.compare(s1.isFinite(), s2.isFinite());
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0 && r5 <= 0 && r6 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0 && r5 >= 0 && r6 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull IfScore score) {
+        return new int[]{score.getCycles(), score.getFootprint(), score.getBlocks(),
+                         score.isOutOfBounds() ? 1 : 0, score.usesGRA() ? 1 : 0, score.isFinite() ? 1 : 0};
     }
 
     @Override
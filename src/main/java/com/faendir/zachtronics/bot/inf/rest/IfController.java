@@ -20,6 +20,8 @@ import com.faendir.zachtronics.bot.inf.model.IfCategory;
 import com.faendir.zachtronics.bot.inf.model.IfGroup;
 import com.faendir.zachtronics.bot.inf.model.IfPuzzle;
 import com.faendir.zachtronics.bot.inf.model.IfRecord;
+import com.faendir.zachtronics.bot.inf.model.IfScore;
+import com.faendir.zachtronics.bot.inf.model.IfSubmission;
 import com.faendir.zachtronics.bot.inf.repository.IfSolutionRepository;
 import com.faendir.zachtronics.bot.inf.rest.dto.IfCategoryDTO;
 import com.faendir.zachtronics.bot.inf.rest.dto.IfGroupDTO;
@@ -27,17 +29,27 @@ import com.faendir.zachtronics.bot.inf.rest.dto.IfPuzzleDTO;
 import com.faendir.zachtronics.bot.inf.rest.dto.IfRecordDTO;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.rest.GameRestController;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/if")
@@ -81,6 +93,15 @@ public class IfController implements GameRestController<IfGroupDTO, IfPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<IfRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        IfCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : IfRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public IfRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         IfPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +113,20 @@ public class IfController implements GameRestController<IfGroupDTO, IfPuzzleDTO,
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author,
+                                           @Nullable @RequestParam(required = false) String score) throws IOException {
+        IfScore ifScore = null;
+        if (score != null && (ifScore = IfScore.parseScore(score)) == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid score: " + score);
+        Collection<ValidationResult<IfSubmission>> submissions = IfSubmission.fromData(new String(solution.getBytes(), StandardCharsets.UTF_8), author,
+                                                                                       ifScore, null, false);
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static IfPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(IfPuzzle.values())
                      .filter(p -> p.getId().equalsIgnoreCase(puzzleId))
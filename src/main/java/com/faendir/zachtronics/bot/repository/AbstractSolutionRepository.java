@@ -20,19 +20,28 @@ import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.Record;
 import com.faendir.zachtronics.bot.model.*;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.utils.Markdown;
 import com.faendir.zachtronics.bot.validation.ValidationResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.opencsv.*;
 import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -40,18 +49,23 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+@Slf4j
 public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJava<C, S, ?>, P extends Puzzle<C>, S extends Score<C>,
                                                  Sub extends Submission<C, P>, R extends Record<C>, Sol extends Solution<C, P, S, R>>
         implements SolutionRepository<C, P, Sub, R> {
 
     protected abstract RedditService getRedditService();
+    protected abstract RedditWikiSync getWikiSync();
     protected abstract Subreddit getSubreddit();
     /** For each column, every category in order of appearance */
     protected abstract C[][] getWikiCategories();
@@ -65,45 +79,199 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
 
     protected abstract @NotNull String wikiPageName(P puzzle);
 
+    /** in solutions */
+    private static final long SOLUTIONS_CACHE_MAX_WEIGHT = 50_000;
+    /** parsed indexes by blob id, blobs are content-addressed so entries never go stale */
+    private final Cache<ObjectId, List<Sol>> solutionsCache = CacheBuilder.newBuilder()
+                                                                          .maximumWeight(SOLUTIONS_CACHE_MAX_WEIGHT)
+                                                                          .<ObjectId, List<Sol>>weigher((id, sols) -> 1 + sols.size())
+                                                                          .recordStats()
+                                                                          .build();
+
+    /** committed state of every puzzle seen so far, as of {@link #indexedHash} */
+    private final Map<P, PuzzleIndex<C, R>> puzzleIndexes = new ConcurrentHashMap<>();
+    private volatile String indexedHash;
+    /** bumped on every change of {@link #puzzleIndexes} */
+    private final AtomicLong indexVersion = new AtomicLong();
+    /** category -> tracked puzzle -> holder, derived from {@link #puzzleIndexes} on first use after a change */
+    private volatile CategoryIndex<C, P, R> categoryIndex;
+
+    /**
+     * @param frontier every solution in index order
+     * @param holders solutions holding at least a category
+     * @param dominance over the frontier, positions are index order
+     */
+    private record PuzzleIndex<C extends Category, R extends Record<C>>(@Nullable ObjectId blobId, @NotNull List<CategoryRecord<R, C>> frontier,
+                                                                        @NotNull List<CategoryRecord<R, C>> holders, @NotNull Map<C, R> recordsByCategory,
+                                                                        @NotNull DominanceIndex dominance) {
+    }
+
+    private record CategoryIndex<C, P, R>(long version, @NotNull Map<C, Map<P, R>> recordsByCategory) {
+    }
+
+    /** doesn't wait for the clone, so the other repositories' beans and clones aren't held up, lookups index lazily meanwhile */
+    @PostConstruct
+    void initIndex() {
+        GuavaCacheMetrics.monitor(Metrics.globalRegistry, solutionsCache, "solutions", "repository", getGitRepo().getName());
+        getGitRepo().getReady()
+                    .thenRunAsync(this::refreshIndex)
+                    .exceptionally(e -> {
+                        log.warn("Failed to build the index of {}, building it on first lookup", getGitRepo().getName(), e);
+                        return null;
+                    });
+    }
+
+    /**
+     * Whether a submission only reads and writes its own puzzle directory.
+     * If so, submissions to different puzzles can run in parallel.
+     */
+    protected boolean isPuzzleLocal() {
+        return true;
+    }
+
     @NotNull
+    protected GitRepository.ReadWriteAccess acquireWriteAccess(@NotNull P puzzle) {
+        if (isPuzzleLocal())
+            return getGitRepo().acquireWriteAccess(relativePuzzlePath(puzzle).toString());
+        else
+            return getGitRepo().acquireWriteAccess();
+    }
+
+    @Nullable
     @Override
-    public List<CategoryRecord<R, C>> findCategoryHolders(@NotNull P puzzle, boolean includeFrontier) {
-        try (GitRepository.ReadAccess access = getGitRepo().acquireReadAccess()) {
-            Path puzzlePath = getPuzzlePath(access, puzzle);
+    public R find(@NotNull P puzzle, @NotNull C category) {
+        return puzzleIndex(puzzle).recordsByCategory().get(category);
+    }
 
-            List<Sol> solutions = unmarshalSolutions(puzzlePath);
+    @NotNull
+    @Override
+    public List<CategoryRecord<R, C>> findCategoryHolders(@NotNull P puzzle, boolean includeFrontier) {
+        PuzzleIndex<C, R> index = puzzleIndex(puzzle);
+        return includeFrontier ? index.frontier() : index.holders();
+    }
 
-            List<CategoryRecord<R, C>> result = new ArrayList<>();
-            for (Sol sol : solutions) {
-                if (includeFrontier || !sol.getCategories().isEmpty()) {
-                    CategoryRecord<R, C> categoryRecord = sol.extendToCategoryRecord(puzzle,
-                                                                                     makeArchiveLink(puzzle, sol.getScore()),
-                                                                                     makeArchivePath(puzzlePath, sol.getScore()));
-                    result.add(categoryRecord);
+    @NotNull
+    @Override
+    public Map<P, R> findAll(@NotNull C category) {
+        if (!getGitRepo().currentHash().equals(indexedHash))
+            refreshIndex();
+        CategoryIndex<C, P, R> index = categoryIndex;
+        long version = indexVersion.get();
+        if (index == null || index.version() != version) {
+            Map<C, Map<P, R>> recordsByCategory = new EnumMap<>(getCategoryClass());
+            for (P puzzle : getTrackedPuzzles()) {
+                Map<C, R> puzzleRecords = puzzleIndex(puzzle).recordsByCategory();
+                for (C supportedCategory : puzzle.getSupportedCategories()) {
+                    recordsByCategory.computeIfAbsent(supportedCategory, c -> new LinkedHashMap<>())
+                                     .put(puzzle, puzzleRecords.get(supportedCategory));
                 }
             }
-            return result;
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+            index = new CategoryIndex<>(version, recordsByCategory);
+            categoryIndex = index;
         }
+        return Collections.unmodifiableMap(index.recordsByCategory().getOrDefault(category, Collections.emptyMap()));
     }
 
+    /** lookups only touch the repository if HEAD moved since the last one */
     @NotNull
-    @Override
-    public List<SubmitResult<R, C>> submitAll(@NotNull Collection<? extends ValidationResult<Sub>> validationResults) {
-        try (GitRepository.ReadWriteAccess access = getGitRepo().acquireWriteAccess()) {
-            List<SubmitResult<R, C>> submitResults = new ArrayList<>();
+    private PuzzleIndex<C, R> puzzleIndex(@NotNull P puzzle) {
+        if (!getGitRepo().currentHash().equals(indexedHash))
+            refreshIndex();
+        PuzzleIndex<C, R> index = puzzleIndexes.get(puzzle);
+        if (index != null)
+            return index;
+        // untracked puzzle, index it on first use and keep it up to date from then on
+        synchronized (puzzleIndexes) {
+            try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+                return puzzleIndexes.computeIfAbsent(puzzle, p -> {
+                    indexVersion.incrementAndGet();
+                    return indexPuzzle(snapshot, p);
+                });
+            }
+        }
+    }
 
-            for (ValidationResult<Sub> validationResult : validationResults) {
-                if (validationResult instanceof ValidationResult.Valid<Sub>) {
-                    Sub submission = validationResult.getSubmission();
-                    submitResults.add(submitOne(access, submission, (sub, wonCategories) -> {}));
-                }
-                else {
-                    submitResults.add(new SubmitResult.Failure<>(validationResult.getMessage()));
+    /** re-indexes the puzzles whose solutions index changed since the last refresh */
+    private void refreshIndex() {
+        synchronized (puzzleIndexes) {
+            try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+                if (snapshot.currentHash().equals(indexedHash))
+                    return;
+                Set<P> puzzles = new HashSet<>(getTrackedPuzzles());
+                puzzles.addAll(puzzleIndexes.keySet());
+                for (P puzzle : puzzles) {
+                    PuzzleIndex<C, R> index = puzzleIndexes.get(puzzle);
+                    if (index == null || !Objects.equals(index.blobId(), snapshot.blobId(indexPath(puzzle))))
+                        putIndex(puzzle, indexPuzzle(snapshot, puzzle));
                 }
+                indexedHash = snapshot.currentHash();
+            }
+        }
+    }
+
+    @NotNull
+    private PuzzleIndex<C, R> indexPuzzle(@NotNull GitRepository.Snapshot snapshot, @NotNull P puzzle) {
+        return indexPuzzle(snapshot, puzzle, unmarshalSolutions(snapshot, puzzle));
+    }
+
+    @NotNull
+    private PuzzleIndex<C, R> indexPuzzle(@NotNull GitRepository.Snapshot snapshot, @NotNull P puzzle, @NotNull List<Sol> solutions) {
+        Path puzzlePath = getPuzzlePath(snapshot, puzzle);
+        List<CategoryRecord<R, C>> frontier = new ArrayList<>(solutions.size());
+        Map<C, R> recordsByCategory = new EnumMap<>(getCategoryClass());
+        for (Sol sol : solutions) {
+            CategoryRecord<R, C> categoryRecord = sol.extendToCategoryRecord(puzzle,
+                                                                             makeArchiveLink(puzzle, sol.getScore()),
+                                                                             makeArchivePath(puzzlePath, sol.getScore()));
+            frontier.add(categoryRecord);
+            for (C category : categoryRecord.getCategories()) {
+                recordsByCategory.put(category, categoryRecord.getRecord());
             }
+        }
+        List<CategoryRecord<R, C>> holders = frontier.stream().filter(cr -> !cr.getCategories().isEmpty()).toList();
+        return new PuzzleIndex<>(snapshot.blobId(indexPath(puzzle)), List.copyOf(frontier), holders,
+                                 Collections.unmodifiableMap(recordsByCategory), dominanceIndex(solutions));
+    }
+
+    @NotNull
+    private DominanceIndex dominanceIndex(@NotNull List<Sol> solutions) {
+        return DominanceIndex.of(solutions, s -> frontierPartition(s.getScore()), s -> frontierMetrics(s.getScore()));
+    }
+
+    /**
+     * Under write access the working copy of the puzzle usually matches HEAD, so the indexed one can be reused.
+     * Its positions decide which rows and archives get removed, so it is only reused if the working copy hashes to the indexed blob.
+     * @param solutions freshly read from the working copy
+     */
+    @NotNull
+    private DominanceIndex dominanceIndex(@NotNull P puzzle, @NotNull Path puzzlePath, @NotNull List<Sol> solutions) throws IOException {
+        PuzzleIndex<C, R> index = puzzleIndex(puzzle);
+        byte[] workingCopy = Files.readAllBytes(puzzlePath.resolve("solutions.psv"));
+        ObjectId workingCopyId = new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, workingCopy);
+        return workingCopyId.equals(index.blobId()) ? index.dominance() : dominanceIndex(solutions);
+    }
 
+    /** replaces the index of a puzzle we just committed, the solutions are already parsed */
+    private void updateIndex(@NotNull P puzzle, @NotNull List<Sol> solutions) {
+        try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+            List<Sol> committed = List.copyOf(solutions);
+            ObjectId blobId = snapshot.blobId(indexPath(puzzle));
+            if (blobId != null)
+                solutionsCache.put(blobId, committed);
+            putIndex(puzzle, indexPuzzle(snapshot, puzzle, committed));
+        }
+    }
+
+    private void putIndex(@NotNull P puzzle, @NotNull PuzzleIndex<C, R> index) {
+        puzzleIndexes.put(puzzle, index);
+        indexVersion.incrementAndGet();
+    }
+
+    @NotNull
+    @Override
+    public List<SubmitResult<R, C>> submitAll(@NotNull Collection<? extends ValidationResult<Sub>> validationResults) {
+        try (GitRepository.ReadWriteAccess access = getGitRepo().acquireWriteAccess()) {
+            List<SubmitResult<R, C>> submitResults = archiveAll(access, validationResults, (sub, wonCategories) -> {});
             access.push();
             return submitResults;
         }
@@ -112,7 +280,7 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
     @NotNull
     @Override
     public SubmitResult<R, C> submit(@NotNull Sub submission) {
-        try (GitRepository.ReadWriteAccess access = getGitRepo().acquireWriteAccess()) {
+        try (GitRepository.ReadWriteAccess access = acquireWriteAccess(submission.getPuzzle())) {
             return submitOne(access, submission, (s, c) -> access.push());
         }
     }
@@ -133,19 +301,11 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
         SubmitResult<R, C> submitResult = archiveOne(access, solutions, submission);
 
         if (submitResult instanceof SubmitResult.Success<R, C>) {
-            Sol submissionSolution = solutions.stream()
-                                              .filter(s -> s.getScore().equals(submission.getScore()))
-                                              .findFirst()
-                                              .orElseThrow();
+            Sol submissionSolution = findSubmitted(solutions, submission);
             Set<C> wonCategories = submissionSolution.getCategories();
             if (!wonCategories.isEmpty()) {
-                // write the reddit lb, as there are changes to write
-                List<String> lines = readRedditWiki(wikiPageName(puzzle));
-                updateRedditLeaderboard(lines, puzzle, access, solutions);
-
-                String updateMessage = puzzle.getDisplayName() + " " + submission.getScore().toDisplayString() +
-                                       " by " + submission.getAuthor();
-                getRedditService().updateWikiPage(getSubreddit(), wikiPageName(puzzle), String.join("\n", lines), updateMessage);
+                // the reddit lb has changes to write
+                markRedditWikiDirty(submission);
             }
             successCallback.accept(submission, wonCategories);
         }
@@ -154,14 +314,12 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
     }
 
     protected abstract Sol makeCandidateSolution(@NotNull Sub submission);
-    /**
-     * <ul>
-     *  <li>-1: s1 is strictly better OR equal
-     *  <li> 0: incomparable
-     *  <li>+1: s2 is strictly better
-     *  </ul>
-     */
-    protected abstract int frontierCompare(@NotNull S s1, @NotNull S s2);
+    /** The metrics a solution has to be at least as good as on to beat another, lower is better, flags count as 0 or 1 */
+    protected abstract int @NotNull [] frontierMetrics(@NotNull S score);
+    /** Scores in different partitions are never comparable */
+    protected int frontierPartition(@NotNull S score) {
+        return 0;
+    }
     /** Allow same-score changes if you bring a display link or you are the original author and don't regress the display link state */
     protected abstract boolean alreadyPresent(@NotNull Sol candidate, @NotNull Sol solution);
 
@@ -178,96 +336,346 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
         P puzzle = submission.getPuzzle();
         Path puzzlePath = getPuzzlePath(access, puzzle);
 
-        List<CategoryRecord<R, C>> beatenCategoryRecords = new ArrayList<>();
-        Sol candidate = makeCandidateSolution(submission);
-
+        SubmitResult<R, C> result;
         try {
-            for (ListIterator<Sol> it = solutions.listIterator(); it.hasNext(); ) {
-                Sol solution = it.next();
-                int r = frontierCompare(candidate.getScore(), solution.getScore());
-                if (r > 0) {
-                    // TODO actually return all of the beating sols
-                    CategoryRecord<R, C> categoryRecord =
-                            solution.extendToCategoryRecord(puzzle,
-                                                            makeArchiveLink(puzzle, solution.getScore()),
-                                                            makeArchivePath(puzzlePath, solution.getScore()));
-                    return new SubmitResult.NothingBeaten<>(Collections.singletonList(categoryRecord));
-                }
-                else if (r < 0) {
-                    if (alreadyPresent(candidate, solution)) {
-                        // TODO handle SubmitResult.Updated
-                        return new SubmitResult.AlreadyPresent<>();
-                    }
+            result = applySubmission(puzzlePath, solutions, dominanceIndex(puzzle, puzzlePath, solutions), submission,
+                                     makeCandidateSolution(submission));
+            if (result instanceof SubmitResult.Success<R, C>)
+                marshalSolutions(solutions, puzzlePath);
+        }
+        catch (IOException e) {
+            // failures could happen after we dirtied the repo, so we call reset&clean on the puzzle dir
+            access.resetAndClean(puzzlePath.toFile());
+            return new SubmitResult.Failure<>(e.toString());
+        }
+        if (!(result instanceof SubmitResult.Success<R, C> success))
+            return result;
 
-                    // remove beaten score and get categories
-                    candidate.getCategories().addAll(solution.getCategories());
-                    Files.deleteIfExists(makeArchivePath(puzzlePath, solution.getScore()));
-                    beatenCategoryRecords.add(solution.extendToCategoryRecord(puzzle, null, null)); // the beaten record has no data anymore
-                    removeOrReplaceFromIndex(candidate, solution, it);
-                }
-            }
+        if (access.status(puzzlePath.toFile()).isClean()) {
+            // the same exact sol was already archived,
+            return new SubmitResult.AlreadyPresent<>();
+        }
+
+        String message = commit(access, List.of(submission), puzzlePath);
+        updateIndex(puzzle, solutions);
+        return new SubmitResult.Success<>(message, null, success.getBeatenRecords());
+    }
+
+    /**
+     * Archives the submissions grouped by puzzle, keeping their order within a puzzle.
+     * Every touched puzzle gets its solutions index written once and a single commit.
+     * @return the result of each submission, in order
+     */
+    @NotNull
+    protected List<SubmitResult<R, C>> archiveAll(@NotNull GitRepository.ReadWriteAccess access,
+                                                  @NotNull Collection<? extends ValidationResult<Sub>> validationResults,
+                                                  @NotNull BiConsumer<Sub, Collection<C>> successCallback) {
+        List<ValidationResult<Sub>> inputs = List.copyOf(validationResults);
+        List<SubmitResult<R, C>> submitResults = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        Map<P, List<Integer>> submissionsByPuzzle = new LinkedHashMap<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            ValidationResult<Sub> validationResult = inputs.get(i);
+            if (validationResult instanceof ValidationResult.Valid<Sub>)
+                submissionsByPuzzle.computeIfAbsent(validationResult.getSubmission().getPuzzle(), p -> new ArrayList<>()).add(i);
+            else
+                submitResults.set(i, new SubmitResult.Failure<>(validationResult.getMessage()));
+        }
 
-            // the new record may have gained categories of records it didn't pareto-beat, do the transfers
-            // while we're here, keep track of totally missing categories, we'll assign them to the new sol
-            EnumSet<C> missingCategories = EnumSet.copyOf(puzzle.getSupportedCategories());
-            missingCategories.removeAll(candidate.getCategories());
-            for (Sol solution: solutions) {
-                EnumSet<C> lostCategories = EnumSet.noneOf(getCategoryClass());
-                for (C category : solution.getCategories()) {
-                    missingCategories.remove(category);
-                    if (category.supportsScore(candidate.getScore()) &&
-                        category.getScoreComparator().compare(candidate.getScore(), solution.getScore()) < 0) {
-                        lostCategories.add(category);
+        for (Map.Entry<P, List<Integer>> entry : submissionsByPuzzle.entrySet()) {
+            P puzzle = entry.getKey();
+            Path puzzlePath = getPuzzlePath(access, puzzle);
+            List<Sol> solutions;
+            Map<Integer, Set<C>> wonCategories = new LinkedHashMap<>();
+            List<Integer> superseded;
+            try {
+                solutions = unmarshalSolutions(puzzlePath);
+                DominanceIndex dominance = dominanceIndex(puzzle, puzzlePath, solutions);
+                for (int i : entry.getValue()) {
+                    Sub submission = inputs.get(i).getSubmission();
+                    Sol candidate = makeCandidateSolution(submission);
+                    Path solutionPath = makeArchivePath(puzzlePath, candidate.getScore());
+                    List<List<String>> indexBefore = marshalToLists(solutions);
+                    byte[] dataBefore = Files.exists(solutionPath) ? Files.readAllBytes(solutionPath) : null;
+
+                    SubmitResult<R, C> result = applySubmission(puzzlePath, solutions, dominance, submission, candidate);
+                    if (result instanceof SubmitResult.Success<R, C>)
+                        dominance = dominanceIndex(solutions);
+                    if (result instanceof SubmitResult.Success<R, C> && dataBefore != null &&
+                        Arrays.equals(dataBefore, Files.readAllBytes(solutionPath)) && indexBefore.equals(marshalToLists(solutions))) {
+                        // the same exact sol was already archived
+                        result = new SubmitResult.AlreadyPresent<>();
+                    }
+                    else if (result instanceof SubmitResult.Success<R, C>) {
+                        // later submissions may take categories away, the result reflects the state right after this one
+                        wonCategories.put(i, EnumSet.copyOf(findSubmitted(solutions, submission).getCategories()));
                     }
+                    submitResults.set(i, result);
                 }
-                if (!lostCategories.isEmpty()) {
-                    // add a CR holding the lost categories, then correct the solutions
-                    CategoryRecord<R, C> beatenCR = new CategoryRecord<>(
-                            solution.extendToRecord(puzzle,
-                                                    makeArchiveLink(puzzle, solution.getScore()),
-                                                    makeArchivePath(puzzlePath, solution.getScore())),
-                            lostCategories);
-                    beatenCategoryRecords.add(beatenCR);
+                // a later submission of the batch may have beaten an earlier one, which is then not archived after all
+                superseded = wonCategories.keySet().stream()
+                                          .filter(i -> solutions.stream().noneMatch(
+                                                  s -> s.getScore().equals(inputs.get(i).getSubmission().getScore())))
+                                          .toList();
+                superseded.forEach(wonCategories::remove);
+                if (!wonCategories.isEmpty())
+                    marshalSolutions(solutions, puzzlePath);
+            }
+            catch (IOException e) {
+                // nothing of this puzzle gets archived, the others are unaffected
+                access.resetAndClean(puzzlePath.toFile());
+                for (int i : entry.getValue())
+                    submitResults.set(i, new SubmitResult.Failure<>(e.toString()));
+                continue;
+            }
+            if (wonCategories.isEmpty())
+                continue;
 
-                    solution.getCategories().removeAll(lostCategories);
-                    candidate.getCategories().addAll(lostCategories);
-                }
+            if (access.status(puzzlePath.toFile()).isClean()) {
+                wonCategories.keySet().forEach(i -> submitResults.set(i, new SubmitResult.AlreadyPresent<>()));
+                continue;
+            }
+
+            List<Sub> archived = wonCategories.keySet().stream().map(i -> inputs.get(i).getSubmission()).toList();
+            String message = commit(access, archived, puzzlePath);
+            updateIndex(puzzle, solutions);
+            List<CategoryRecord<R, C>> frontier = puzzleIndex(puzzle).frontier();
+            for (int i : superseded) {
+                List<CategoryRecord<R, C>> beatenBy =
+                        frontier.stream()
+                                .filter(cr -> wonCategories.keySet().stream().anyMatch(
+                                        w -> w > i && cr.getRecord().getScore().equals(inputs.get(w).getSubmission().getScore())))
+                                .toList();
+                submitResults.set(i, new SubmitResult.NothingBeaten<>(beatenBy));
+            }
+            for (Map.Entry<Integer, Set<C>> won : wonCategories.entrySet()) {
+                SubmitResult.Success<R, C> success = (SubmitResult.Success<R, C>) submitResults.get(won.getKey());
+                submitResults.set(won.getKey(), new SubmitResult.Success<>(message, null, success.getBeatenRecords()));
+                Sub submission = inputs.get(won.getKey()).getSubmission();
+                successCallback.accept(submission, won.getValue());
+                if (!won.getValue().isEmpty())
+                    markRedditWikiDirty(submission);
+            }
+        }
+        return submitResults;
+    }
+
+    @NotNull
+    private Sol findSubmitted(@NotNull List<Sol> solutions, @NotNull Sub submission) {
+        return solutions.stream()
+                        .filter(s -> s.getScore().equals(submission.getScore()))
+                        .findFirst()
+                        .orElseThrow();
+    }
+
+    @NotNull
+    private static List<List<String>> marshalToLists(@NotNull List<? extends Solution<?, ?, ?, ?>> solutions) {
+        return solutions.stream().map(s -> Arrays.asList(s.marshal())).toList();
+    }
+
+    /**
+     * Applies the submission to the solutions and writes its archive file, the solutions index file is left to the caller.
+     * @param solutions the list is modified with the updated state
+     * @param dominance over the solutions as they are passed in
+     * @return a {@link SubmitResult.Success} without message if the submission is to be archived, the solutions are untouched otherwise
+     */
+    @NotNull
+    private SubmitResult<R, C> applySubmission(@NotNull Path puzzlePath, @NotNull List<Sol> solutions, @NotNull DominanceIndex dominance,
+                                               @NotNull Sub submission, @NotNull Sol candidate) throws IOException {
+        List<Sol> beaten = new ArrayList<>();
+        SubmitResult<R, C> result = evaluateSubmission(puzzlePath, solutions, dominance, submission, candidate, beaten);
+        if (result instanceof SubmitResult.Success<R, C>) {
+            for (Sol solution : beaten) {
+                Files.deleteIfExists(makeArchivePath(puzzlePath, solution.getScore()));
             }
+            Files.write(makeArchivePath(puzzlePath, candidate.getScore()), submissionData(submission), StandardOpenOption.CREATE_NEW);
+        }
+        return result;
+    }
 
-            // add in completely missing categories
-            if (!missingCategories.isEmpty()) {
-                missingCategories.removeIf(c -> !c.supportsScore(candidate.getScore()));
-                beatenCategoryRecords.add(new CategoryRecord<>(null, missingCategories));
-                candidate.getCategories().addAll(missingCategories);
+    /**
+     * The in-memory part of {@link #applySubmission}, nothing is read from or written to the puzzle directory except for record links
+     * @param beaten receives the solutions the candidate pareto-beat, their archive files are to be deleted
+     */
+    @NotNull
+    private SubmitResult<R, C> evaluateSubmission(@NotNull Path puzzlePath, @NotNull List<Sol> solutions, @NotNull DominanceIndex dominance,
+                                                  @NotNull Sub submission, @NotNull Sol candidate, @NotNull List<Sol> beaten) {
+        P puzzle = submission.getPuzzle();
+        List<CategoryRecord<R, C>> beatenCategoryRecords = new ArrayList<>();
+        int partition = frontierPartition(candidate.getScore());
+        int[] metrics = frontierMetrics(candidate.getScore());
+
+        int dominating = dominance.firstDominating(partition, metrics);
+        if (dominating != -1) {
+            // TODO actually return all of the beating sols
+            Sol solution = solutions.get(dominating);
+            CategoryRecord<R, C> categoryRecord =
+                    solution.extendToCategoryRecord(puzzle,
+                                                    makeArchiveLink(puzzle, solution.getScore()),
+                                                    makeArchivePath(puzzlePath, solution.getScore()));
+            return new SubmitResult.NothingBeaten<>(Collections.singletonList(categoryRecord));
+        }
+
+        int[] dominated = dominance.dominated(partition, metrics);
+        for (int position : dominated) {
+            if (alreadyPresent(candidate, solutions.get(position))) {
+                // TODO handle SubmitResult.Updated
+                return new SubmitResult.AlreadyPresent<>();
             }
+        }
+        for (int position : dominated) {
+            // remove beaten score and get categories
+            Sol solution = solutions.get(position);
+            candidate.getCategories().addAll(solution.getCategories());
+            beaten.add(solution);
+            beatenCategoryRecords.add(solution.extendToCategoryRecord(puzzle, null, null)); // the beaten record has no data anymore
+        }
+        // back to front, so the positions still to visit don't shift
+        for (int i = dominated.length - 1; i >= 0; i--) {
+            ListIterator<Sol> it = solutions.listIterator(dominated[i]);
+            removeOrReplaceFromIndex(candidate, it.next(), it);
+        }
 
-            int index = Collections.binarySearch(solutions, candidate, getArchiveComparator());
-            if (index < 0) {
-                index = -index - 1;
+        // the new record may have gained categories of records it didn't pareto-beat, do the transfers
+        // while we're here, keep track of totally missing categories, we'll assign them to the new sol
+        EnumSet<C> missingCategories = EnumSet.copyOf(puzzle.getSupportedCategories());
+        missingCategories.removeAll(candidate.getCategories());
+        for (Sol solution: solutions) {
+            EnumSet<C> lostCategories = EnumSet.noneOf(getCategoryClass());
+            for (C category : solution.getCategories()) {
+                missingCategories.remove(category);
+                if (category.supportsScore(candidate.getScore()) &&
+                    category.getScoreComparator().compare(candidate.getScore(), solution.getScore()) < 0) {
+                    lostCategories.add(category);
+                }
+            }
+            if (!lostCategories.isEmpty()) {
+                // add a CR holding the lost categories, then correct the solutions
+                CategoryRecord<R, C> beatenCR = new CategoryRecord<>(
+                        solution.extendToRecord(puzzle,
+                                                makeArchiveLink(puzzle, solution.getScore()),
+                                                makeArchivePath(puzzlePath, solution.getScore())),
+                        lostCategories);
+                beatenCategoryRecords.add(beatenCR);
+
+                solution.getCategories().removeAll(lostCategories);
+                candidate.getCategories().addAll(lostCategories);
             }
-            solutions.add(index, candidate);
+        }
 
-            Path solutionPath = makeArchivePath(puzzlePath, candidate.getScore());
-            if (submission.getData() instanceof String data)
-                Files.writeString(solutionPath, data, StandardOpenOption.CREATE_NEW);
-            else
-                Files.write(solutionPath, (byte[]) submission.getData(), StandardOpenOption.CREATE_NEW);
+        // add in completely missing categories
+        if (!missingCategories.isEmpty()) {
+            missingCategories.removeIf(c -> !c.supportsScore(candidate.getScore()));
+            beatenCategoryRecords.add(new CategoryRecord<>(null, missingCategories));
+            candidate.getCategories().addAll(missingCategories);
+        }
 
-            marshalSolutions(solutions, puzzlePath);
+        int index = Collections.binarySearch(solutions, candidate, getArchiveComparator());
+        if (index < 0) {
+            index = -index - 1;
         }
-        catch (IOException e) {
-            // failures could happen after we dirtied the repo, so we call reset&clean on the puzzle dir
-            access.resetAndClean(puzzlePath.toFile());
-            return new SubmitResult.Failure<>(e.toString());
+        solutions.add(index, candidate);
+
+        return new SubmitResult.Success<>(null, null, beatenCategoryRecords);
+    }
+
+    private static byte @NotNull [] submissionData(@NotNull Submission<?, ?> submission) {
+        if (submission.getData() instanceof String data)
+            return data.getBytes(StandardCharsets.UTF_8);
+        else
+            return (byte[]) submission.getData();
+    }
+
+    /**
+     * Evaluates the submissions like {@link #submitAll} would right now, against an in-memory copy of the committed state.
+     * Nothing is written and no lock is taken, so probing doesn't contend with writers.
+     * Submissions to the same puzzle see the effects of the earlier ones
+     * @return the result of each submission, in order, successes carry no commit message
+     */
+    @NotNull
+    @Override
+    public List<SubmitResult<R, C>> submitAllDryRun(@NotNull Collection<? extends ValidationResult<Sub>> validationResults) {
+        List<SubmitResult<R, C>> submitResults = new ArrayList<>(validationResults.size());
+        Map<P, List<Sol>> solutionsByPuzzle = new HashMap<>();
+        // what earlier submissions of the batch would have archived
+        Map<Path, byte[]> archives = new HashMap<>();
+        try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+            for (ValidationResult<Sub> validationResult : validationResults) {
+                if (!(validationResult instanceof ValidationResult.Valid<Sub>)) {
+                    submitResults.add(new SubmitResult.Failure<>(validationResult.getMessage()));
+                    continue;
+                }
+                Sub submission = validationResult.getSubmission();
+                // the committed solutions are shared, categories get moved around on a copy
+                List<Sol> solutions = solutionsByPuzzle.computeIfAbsent(submission.getPuzzle(), p -> unmarshalSolutions(snapshot, p)
+                        .stream()
+                        .map(this::copySolution)
+                        .collect(Collectors.toCollection(ArrayList::new)));
+                submitResults.add(evaluateDryRun(snapshot, archives, solutions, submission));
+            }
+            // like submitAll, an earlier submission beaten by a later one of the batch would not be archived
+            List<ValidationResult<Sub>> inputs = List.copyOf(validationResults);
+            for (int i = 0; i < inputs.size(); i++) {
+                if (!(submitResults.get(i) instanceof SubmitResult.Success<R, C>))
+                    continue;
+                int earlier = i;
+                P puzzle = inputs.get(i).getSubmission().getPuzzle();
+                List<Sol> solutions = solutionsByPuzzle.get(puzzle);
+                if (solutions.stream().anyMatch(s -> s.getScore().equals(inputs.get(earlier).getSubmission().getScore())))
+                    continue;
+                Path puzzlePath = getPuzzlePath(snapshot, puzzle);
+                List<CategoryRecord<R, C>> beatenBy =
+                        solutions.stream()
+                                 .filter(sol -> IntStream.range(earlier + 1, inputs.size()).anyMatch(
+                                         later -> submitResults.get(later) instanceof SubmitResult.Success<R, C> &&
+                                                  inputs.get(later).getSubmission().getPuzzle() == puzzle &&
+                                                  sol.getScore().equals(inputs.get(later).getSubmission().getScore())))
+                                 .map(sol -> sol.extendToCategoryRecord(puzzle, makeArchiveLink(puzzle, sol.getScore()),
+                                                                        makeArchivePath(puzzlePath, sol.getScore())))
+                                 .toList();
+                submitResults.set(i, new SubmitResult.NothingBeaten<>(beatenBy));
+            }
         }
+        return submitResults;
+    }
 
-        if (access.status().isClean()) {
-            // the same exact sol was already archived,
-            return new SubmitResult.AlreadyPresent<>();
+    @NotNull
+    @Override
+    public SubmitResult<R, C> submitDryRun(@NotNull Sub submission) {
+        return submitAllDryRun(List.of(new ValidationResult.Valid<>(submission))).get(0);
+    }
+
+    @NotNull
+    private SubmitResult<R, C> evaluateDryRun(@NotNull GitRepository.Snapshot snapshot, @NotNull Map<Path, byte[]> archives,
+                                              @NotNull List<Sol> solutions, @NotNull Sub submission) {
+        P puzzle = submission.getPuzzle();
+        Path puzzlePath = getPuzzlePath(snapshot, puzzle);
+        Sol candidate = makeCandidateSolution(submission);
+        List<List<String>> indexBefore = marshalToLists(solutions);
+
+        SubmitResult<R, C> result = evaluateSubmission(puzzlePath, solutions, dominanceIndex(solutions), submission, candidate,
+                                                       new ArrayList<>());
+        if (result instanceof SubmitResult.Success<R, C>) {
+            Path archivePath = relativePuzzlePath(puzzle).resolve(makeArchivePath(puzzlePath, candidate.getScore()).getFileName());
+            byte[] data = submissionData(submission);
+            if (indexBefore.equals(marshalToLists(solutions))) {
+                byte[] archived = archives.containsKey(archivePath) ? archives.get(archivePath) : snapshot.readBytes(archivePath);
+                if (archived != null && Arrays.equals(archived, data)) {
+                    // the same exact sol was already archived
+                    return new SubmitResult.AlreadyPresent<>();
+                }
+            }
+            archives.put(archivePath, data);
         }
+        return result;
+    }
 
-        String result = commit(access, submission, puzzlePath);
-        return new SubmitResult.Success<>(result, null, beatenCategoryRecords);
+    /** round trips through the index format, which reads empty fields as null */
+    @NotNull
+    private Sol copySolution(@NotNull Sol solution) {
+        String[] fields = Arrays.stream(solution.marshal())
+                                .map(f -> f == null || f.isEmpty() ? null : f)
+                                .toArray(String[]::new);
+        return getSolUnmarshaller().apply(fields);
     }
 
     private @NotNull String makeArchiveLink(String @NotNull ... parts) {
@@ -277,16 +685,23 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
                      .collect(Collectors.joining("/", getGitRepo().getRawFilesUrl() + "/", ""));
     }
 
+    /** @param submissions all of the same puzzle */
     @NotNull
-    protected String commit(@NotNull GitRepository.ReadWriteAccess access, @NotNull Sub submission, @NotNull Path puzzlePath) {
+    protected String commit(@NotNull GitRepository.ReadWriteAccess access, @NotNull List<Sub> submissions, @NotNull Path puzzlePath) {
         access.addAll(puzzlePath.toFile());
-        String result = Stream.concat(access.status().getChanged().stream(),
-                                      access.status().getAdded().stream())
+        Status status = access.status(puzzlePath.toFile());
+        String result = Stream.concat(status.getChanged().stream(),
+                                      status.getAdded().stream())
                               .map(f -> Markdown.link(f.replaceFirst(".+/", ""), makeArchiveLink(f)))
                               .collect(Collectors.joining(", "));
-        RevCommit rev = access.commit("Added " + submission.getScore().toDisplayString() +
-                                      " for " + submission.getPuzzle().getDisplayName() +
-                                      " by " + submission.getAuthor());
+        RevCommit rev = access.commit("Added " + submissions.stream()
+                                                            .map(s -> s.getScore().toDisplayString())
+                                                            .collect(Collectors.joining(", ")) +
+                                      " for " + submissions.get(0).getPuzzle().getDisplayName() +
+                                      " by " + submissions.stream()
+                                                          .map(Submission::getAuthor)
+                                                          .distinct()
+                                                          .collect(Collectors.joining(", ")));
         result += "\n[commit " + rev.name().substring(0, 7) + "]" +
                   "(" + getGitRepo().getUrl().replaceFirst(".git$", "") + "/commit/" + rev.name() + ")";
         return result;
@@ -298,12 +713,7 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
     public List<Sol> unmarshalSolutions(@NotNull Path puzzlePath) throws IOException {
         Path indexPath = puzzlePath.resolve("solutions.psv");
         try (BufferedReader reader = Files.newBufferedReader(indexPath)) {
-
-            CSVParser parser = new CSVParserBuilder().withSeparator('|').withFieldAsNull(CSVReaderNullFieldIndicator.BOTH).build();
-            CSVReader csvReader = new CSVReaderBuilder(reader).withCSVParser(parser).build();
-            return StreamSupport.stream(csvReader.spliterator(), false)
-                                .map(getSolUnmarshaller())
-                                .collect(Collectors.toList());
+            return parseSolutions(reader);
         }
         catch (NoSuchFileException e) {
             Files.createDirectories(puzzlePath);
@@ -312,6 +722,36 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
         }
     }
 
+    /**
+     * Reads the solutions index as of the snapshot commit, a puzzle without an index has no solutions
+     * @return an immutable list shared with other readers, its solutions must not be modified
+     */
+    public List<Sol> unmarshalSolutions(@NotNull GitRepository.Snapshot snapshot, @NotNull P puzzle) {
+        ObjectId blobId = snapshot.blobId(indexPath(puzzle));
+        if (blobId == null)
+            return Collections.emptyList();
+        List<Sol> solutions = solutionsCache.getIfPresent(blobId);
+        if (solutions == null) {
+            String index = new String(snapshot.readBytes(blobId), StandardCharsets.UTF_8);
+            solutions = List.copyOf(parseSolutions(new StringReader(index)));
+            solutionsCache.put(blobId, solutions);
+        }
+        return solutions;
+    }
+
+    @NotNull
+    public CacheStats getSolutionsCacheStats() {
+        return solutionsCache.stats();
+    }
+
+    private List<Sol> parseSolutions(@NotNull Reader reader) {
+        CSVParser parser = new CSVParserBuilder().withSeparator('|').withFieldAsNull(CSVReaderNullFieldIndicator.BOTH).build();
+        CSVReader csvReader = new CSVReaderBuilder(reader).withCSVParser(parser).build();
+        return StreamSupport.stream(csvReader.spliterator(), false)
+                            .map(getSolUnmarshaller())
+                            .collect(Collectors.toList());
+    }
+
     public void marshalSolutions(@NotNull List<Sol> solutions, @NotNull Path puzzlePath) throws IOException {
         try (BufferedWriter writer = Files.newBufferedWriter(puzzlePath.resolve("solutions.psv"),
                                                              StandardOpenOption.TRUNCATE_EXISTING)) {
@@ -321,41 +761,62 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
     }
 
     public void rebuildRedditLeaderboard(@Nullable P maybePuzzle) {
-        try (GitRepository.ReadWriteAccess access = getGitRepo().acquireWriteAccess()) {
-            if (maybePuzzle != null) {
-                String page = wikiPageName(maybePuzzle);
-                List<String> lines = readRedditWiki(page);
-                Path puzzlePath = getPuzzlePath(access, maybePuzzle);
-                List<Sol> solutions = unmarshalSolutions(puzzlePath);
-                updateRedditLeaderboard(lines, maybePuzzle, access, solutions);
-                getRedditService().updateWikiPage(getSubreddit(), page, String.join("\n", lines),
-                                                  "Manual wiki rebuild for " + maybePuzzle.getDisplayName());
-            }
-            else {
-                Set<String> pages = getTrackedPuzzles().stream()
-                                                       .map(this::wikiPageName)
-                                                       .collect(Collectors.toSet());
-                for (String page : pages) {
-                    List<String> lines = rebuildRedditPage(page, access);
-                    getRedditService().updateWikiPage(getSubreddit(), page, String.join("\n", lines), "Manual wiki rebuild");
-                }
+        rebuildRedditLeaderboard(maybePuzzle, (done, total) -> {});
+    }
+
+    /** a full rebuild renders all pages in parallel from the same commit */
+    public void rebuildRedditLeaderboard(@Nullable P maybePuzzle, @NotNull RedditWikiSync.Progress progress) {
+        if (maybePuzzle != null) {
+            String page = wikiPageName(maybePuzzle);
+            getWikiSync().syncNow(getSubreddit(), page, "Manual wiki rebuild for " + maybePuzzle.getDisplayName(),
+                                  current -> renderRedditPage(page, current));
+            progress.report(1, 1);
+        }
+        else {
+            Set<String> pages = getTrackedPuzzles().stream()
+                                                   .map(this::wikiPageName)
+                                                   .collect(Collectors.toCollection(LinkedHashSet::new));
+            try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+                getWikiSync().syncAll(getSubreddit(), pages, "Manual wiki rebuild", (page, current) -> {
+                    try (GitRepository.Snapshot pageSnapshot = snapshot.fork()) {
+                        return renderRedditPage(page, current, pageSnapshot);
+                    }
+                }, progress);
             }
         }
-        catch (IOException e) {
-            throw new UncheckedIOException(e);
+    }
+
+    /** the page is rendered in the background once submissions to it settle down */
+    private void markRedditWikiDirty(@NotNull Sub submission) {
+        P puzzle = submission.getPuzzle();
+        String page = wikiPageName(puzzle);
+        String reason = puzzle.getDisplayName() + " " + submission.getScore().toDisplayString() + " by " + submission.getAuthor();
+        getWikiSync().markDirty(getSubreddit(), page, reason, current -> renderRedditPage(page, current));
+    }
+
+    /** renders the page from the committed state, without holding any lock */
+    @NotNull
+    private String renderRedditPage(@NotNull String page, @NotNull String current) {
+        try (GitRepository.Snapshot snapshot = getGitRepo().acquireSnapshot()) {
+            return renderRedditPage(page, current, snapshot);
         }
     }
 
+    @NotNull
+    private String renderRedditPage(@NotNull String page, @NotNull String current, GitRepository.@NotNull Snapshot snapshot) {
+        return String.join("\n", rebuildRedditPage(page, splitRedditWiki(current), snapshot));
+    }
+
     /** @return mutable list of wiki lines */
     @NotNull
-    protected List<String> readRedditWiki(String page) {
+    private static List<String> splitRedditWiki(@NotNull String content) {
         return Pattern.compile("\\r?\\n")
-                      .splitAsStream(getRedditService().getWikiPage(getSubreddit(), page))
+                      .splitAsStream(content)
                       .collect(Collectors.toList());
     }
 
     /** @param lines mutable list of wiki lines, it will be updated in place */
-    protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull P puzzle, GitRepository.@NotNull ReadWriteAccess access,
+    protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull P puzzle, GitRepository.@NotNull Snapshot snapshot,
                                            @NotNull List<Sol> solutions) {
         Pattern puzzleRegex = Pattern.compile("^\\| \\[" + Pattern.quote(puzzle.getDisplayName()) + "]");
 
@@ -381,7 +842,7 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
             }
         }
 
-        Path puzzlePath = getPuzzlePath(access, puzzle);
+        Path puzzlePath = getPuzzlePath(snapshot, puzzle);
         Map<C, R> recordMap = new EnumMap<>(getCategoryClass());
         for (Sol solution : solutions) {
             R record = solution.extendToRecord(puzzle,
@@ -434,14 +895,14 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
         }
     }
 
-    protected List<String> rebuildRedditPage(String page, GitRepository.ReadWriteAccess access)
-    throws IOException {
-        List<String> lines = readRedditWiki(page);
+    /**
+     * @param lines mutable list of the current wiki lines
+     * @return the updated wiki lines
+     */
+    protected List<String> rebuildRedditPage(String page, @NotNull List<String> lines, GitRepository.@NotNull Snapshot snapshot) {
         List<P> puzzles = getTrackedPuzzles().stream().filter(p -> wikiPageName(p).equals(page)).toList();
         for (P puzzle : puzzles) {
-            Path puzzlePath = getPuzzlePath(access, puzzle);
-            List<Sol> solutions = unmarshalSolutions(puzzlePath);
-            updateRedditLeaderboard(lines, puzzle, access, solutions);
+            updateRedditLeaderboard(lines, puzzle, snapshot, unmarshalSolutions(snapshot, puzzle));
         }
         return lines;
     }
@@ -451,9 +912,19 @@ public abstract class AbstractSolutionRepository<C extends Enum<C> & CategoryJav
         return access.getRepo().toPath().resolve(relativePuzzlePath(puzzle));
     }
 
+    @NotNull
+    protected Path getPuzzlePath(@NotNull GitRepository.Snapshot snapshot, P puzzle) {
+        return snapshot.getRepo().toPath().resolve(relativePuzzlePath(puzzle));
+    }
+
     @NotNull
     protected abstract Path relativePuzzlePath(@NotNull P puzzle);
 
+    @NotNull
+    private Path indexPath(@NotNull P puzzle) {
+        return relativePuzzlePath(puzzle).resolve("solutions.psv");
+    }
+
     @NotNull
     protected abstract String makeArchiveLink(@NotNull P puzzle, @NotNull S score);
 
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.repository;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Pareto dominance queries over a list of metric vectors, lower is better on every metric.<br>
+ * Vectors in different partitions are never comparable.
+ * Rows are stored flat and sorted by partition and first metric, so a query only scans the rows whose first metric can qualify.
+ * That is a constant-factor pruning, not a sub-linear query: if the first metric doesn't discriminate,
+ * e.g. a frontier with mostly equal cycles, a query still scans its whole partition.
+ */
+public final class DominanceIndex {
+    private final int dimensions;
+    private final int[] partitions;
+    /** row-major */
+    private final int[] metrics;
+    /** position in the source list of each row */
+    private final int[] positions;
+
+    private DominanceIndex(int dimensions, int[] partitions, int[] metrics, int[] positions) {
+        this.dimensions = dimensions;
+        this.partitions = partitions;
+        this.metrics = metrics;
+        this.positions = positions;
+    }
+
+    @NotNull
+    public static <T> DominanceIndex of(@NotNull List<T> items, @NotNull ToIntFunction<T> partition,
+                                        @NotNull Function<T, int[]> metrics) {
+        int size = items.size();
+        int[] itemPartitions = new int[size];
+        int[][] itemMetrics = new int[size][];
+        for (int i = 0; i < size; i++) {
+            T item = items.get(i);
+            itemPartitions[i] = partition.applyAsInt(item);
+            itemMetrics[i] = metrics.apply(item);
+        }
+        int dimensions = size == 0 ? 0 : itemMetrics[0].length;
+
+        int[] order = IntStream.range(0, size)
+                               .boxed()
+                               .sorted(Comparator.<Integer>comparingInt(i -> itemPartitions[i])
+                                                 .thenComparingInt(i -> itemMetrics[i][0]))
+                               .mapToInt(Integer::intValue)
+                               .toArray();
+        int[] partitions = new int[size];
+        int[] flatMetrics = new int[size * dimensions];
+        for (int row = 0; row < size; row++) {
+            int position = order[row];
+            if (itemMetrics[position].length != dimensions)
+                throw new IllegalArgumentException("Inconsistent metrics at position " + position);
+            partitions[row] = itemPartitions[position];
+            System.arraycopy(itemMetrics[position], 0, flatMetrics, row * dimensions, dimensions);
+        }
+        return new DominanceIndex(dimensions, partitions, flatMetrics, order);
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    /**
+     * <ul>
+     *  <li>-1: v1 is strictly better OR equal
+     *  <li> 0: incomparable
+     *  <li>+1: v2 is strictly better
+     *  </ul>
+     */
+    public static int compare(int partition1, int @NotNull [] v1, int partition2, int @NotNull [] v2) {
+        if (partition1 != partition2)
+            return 0;
+        boolean better = false;
+        boolean worse = false;
+        for (int d = 0; d < v1.length; d++) {
+            if (v1[d] < v2[d])
+                better = true;
+            else if (v1[d] > v2[d])
+                worse = true;
+        }
+        if (!worse)
+            return -1;
+        return better ? 0 : 1;
+    }
+
+    /** @return the lowest source position among the rows strictly better than the vector, -1 if there is none */
+    public int firstDominating(int partition, int @NotNull [] vector) {
+        int result = -1;
+        for (int row = lowerBound(partition, Integer.MIN_VALUE), end = upperBound(partition, vector[0]); row < end; row++) {
+            if ((result == -1 || positions[row] < result) && compareRow(row, vector) > 0)
+                result = positions[row];
+        }
+        return result;
+    }
+
+    /** @return the source positions, ascending, of the rows the vector is strictly better than or equal to */
+    public int @NotNull [] dominated(int partition, int @NotNull [] vector) {
+        int start = lowerBound(partition, vector[0]);
+        int end = upperBound(partition, Integer.MAX_VALUE);
+        int[] result = new int[end - start];
+        int count = 0;
+        for (int row = start; row < end; row++) {
+            if (compareRow(row, vector) < 0)
+                result[count++] = positions[row];
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /** same as {@link #compare}, the vector goes first, the row is known to be in the same partition */
+    private int compareRow(int row, int[] vector) {
+        boolean better = false;
+        boolean worse = false;
+        for (int d = 0, offset = row * dimensions; d < dimensions; d++, offset++) {
+            if (vector[d] < metrics[offset])
+                better = true;
+            else if (vector[d] > metrics[offset])
+                worse = true;
+        }
+        if (!worse)
+            return -1;
+        return better ? 0 : 1;
+    }
+
+    /** first row not before (partition, first metric) */
+    private int lowerBound(int partition, int firstMetric) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (partitions[mid] < partition || (partitions[mid] == partition && metrics[mid * dimensions] < firstMetric))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /** first row after (partition, first metric) */
+    private int upperBound(int partition, int firstMetric) {
+        int low = 0;
+        int high = positions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (partitions[mid] < partition || (partitions[mid] == partition && metrics[mid * dimensions] <= firstMetric))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+}
@@ -33,7 +33,7 @@ public interface Solution<C extends Enum<C> & Category, P extends Puzzle<C>, S e
     R extendToRecord(P puzzle, String dataLink, Path dataPath);
 
     default CategoryRecord<R, C> extendToCategoryRecord(P puzzle, String dataLink, Path dataPath) {
-        return new CategoryRecord<>(extendToRecord(puzzle, dataLink, dataPath), getCategories());
+        return new CategoryRecord<>(extendToRecord(puzzle, dataLink, dataPath), EnumSet.copyOf(getCategories()));
     }
 
     String @NotNull [] marshal();
@@ -20,6 +20,7 @@ import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.model.StringFormat;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import com.faendir.zachtronics.bot.repository.SubmitResult;
@@ -49,6 +50,7 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
     private final ScCategory[][] wikiCategories = {{ C,  CNB,  CNP,  CNBP}, { S,  SNB,  SNP,  SNBP},
                                                    {RC, RCNB, RCNP, RCNBP}, {RS, RSNB, RSNP, RSNBP}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.SPACECHEM;
 
     @Qualifier("scArchiveRepository")
@@ -64,7 +66,7 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
     @NotNull
     @Override
     public SubmitResult<ScRecord, ScCategory> submit(@NotNull ScSubmission submission) {
-        try (GitRepository.ReadWriteAccess access = gitRepo.acquireWriteAccess()) {
+        try (GitRepository.ReadWriteAccess access = acquireWriteAccess(submission.getPuzzle())) {
             BiConsumer<ScSubmission, Collection<ScCategory>> successCallback = (sub, wonCategories) -> {
                 access.push();
                 if (!wonCategories.isEmpty()) {
@@ -86,22 +88,12 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
     public List<SubmitResult<ScRecord, ScCategory>> submitAll(
             @NotNull Collection<? extends ValidationResult<ScSubmission>> validationResults) {
         try (GitRepository.ReadWriteAccess access = gitRepo.acquireWriteAccess()) {
-            List<SubmitResult<ScRecord, ScCategory>> submitResults = new ArrayList<>();
             StringJoiner redditAnnouncement = new StringJoiner("  \n");
             BiConsumer<ScSubmission, Collection<ScCategory>> successCallback = (sub, wonCategories) -> {
                 if (!wonCategories.isEmpty())
                     redditAnnouncement.add(makeRedditAnnouncement(sub, wonCategories));
             };
-
-            for (ValidationResult<ScSubmission> validationResult : validationResults) {
-                if (validationResult instanceof ValidationResult.Valid<ScSubmission>) {
-                    ScSubmission submission = validationResult.getSubmission();
-                    submitResults.add(submitOne(access, submission, successCallback));
-                }
-                else {
-                    submitResults.add(new SubmitResult.Failure<>(validationResult.getMessage()));
-                }
-            }
+            List<SubmitResult<ScRecord, ScCategory>> submitResults = archiveAll(access, validationResults, successCallback);
 
             access.push();
             if (redditAnnouncement.length() != 0) {
@@ -113,7 +105,7 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
 
     @Override
     protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull ScPuzzle puzzle,
-                                           GitRepository.@NotNull ReadWriteAccess access, @NotNull List<ScSolution> solutions) {
+                                           GitRepository.@NotNull Snapshot snapshot, @NotNull List<ScSolution> solutions) {
 
         Map<ScCategory, ScRecord> recordMap = new EnumMap<>(ScCategory.class);
         Map<ScCategory, ScRecord> videoRecordMap = new EnumMap<>(ScCategory.class);
@@ -121,7 +113,7 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
                                                .filter(s -> s.getDisplayLink() != null)
                                                .map(s -> s.extendToRecord(puzzle, null, null)) // no export needed
                                                .toList();
-        Path puzzlePath = getPuzzlePath(access, puzzle);
+        Path puzzlePath = getPuzzlePath(snapshot, puzzle);
         for (ScSolution solution: solutions) {
             ScRecord record = solution.extendToRecord(puzzle,
                                                       makeArchiveLink(puzzle, solution.getScore()),
@@ -241,25 +233,9 @@ public class ScSolutionRepository extends AbstractSolutionRepository<ScCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull ScScore s1, @NotNull ScScore s2) {
-        int r1 = Integer.compare(s1.getCycles(), s2.getCycles());
-        int r2 = Integer.compare(s1.getReactors(), s2.getReactors());
-        int r3 = Integer.compare(s1.getSymbols(), s2.getSymbols());
-        int r4 = Boolean.compare(s1.isBugged(), s2.isBugged());
-        int r5 = Boolean.compare(s1.isPrecognitive(), s2.isPrecognitive());
-
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0 && r5 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0 && r5 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull ScScore score) {
+        return new int[]{score.getCycles(), score.getReactors(), score.getSymbols(),
+                         score.isBugged() ? 1 : 0, score.isPrecognitive() ? 1 : 0};
     }
 
     @Override
@@ -33,10 +33,13 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @RestController
@@ -82,6 +85,17 @@ public class ScController implements GameRestController<ScGroupDTO, ScPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<ScRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        ScCategory category = findCategory(categoryId);
+        // like the per-puzzle listing, records without data are not served
+        return repository.findAll(category).values().stream()
+                         .filter(r -> r != null && r.getDataLink() != null)
+                         .map(r -> ScRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public ScRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         ScPuzzle puzzle = findPuzzle(puzzleId);
@@ -105,6 +119,15 @@ public class ScController implements GameRestController<ScGroupDTO, ScPuzzleDTO,
                          .toList();
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<ScSubmission>> submissions = SChem.validateMultiExport(new String(solution.getBytes(), StandardCharsets.UTF_8), false, author);
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static ScPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(ScPuzzle.values())
                      .filter(p -> p.name().equalsIgnoreCase(puzzleId))
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.sz.discord;
+
+import com.faendir.zachtronics.bot.discord.command.AbstractStatsCommand;
+import com.faendir.zachtronics.bot.discord.command.option.CommandOption;
+import com.faendir.zachtronics.bot.discord.command.option.OptionHelpersKt;
+import com.faendir.zachtronics.bot.sz.SzQualifier;
+import com.faendir.zachtronics.bot.sz.model.SzCategory;
+import com.faendir.zachtronics.bot.sz.model.SzPuzzle;
+import com.faendir.zachtronics.bot.sz.model.SzRecord;
+import com.faendir.zachtronics.bot.sz.model.SzSubmission;
+import com.faendir.zachtronics.bot.sz.repository.SzSolutionRepository;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Component
+@SzQualifier
+public class SzStatsCommand extends AbstractStatsCommand<SzCategory, SzPuzzle, SzSubmission, SzRecord> {
+    private final CommandOption<String, String> solutionOption = OptionHelpersKt.dataLinkOptionBuilder("solution")
+            .description("Link to the solution file, can be `m1` to scrape it from your last message")
+            .required()
+            .build();
+    @Getter
+    private final List<CommandOption<?, ?>> options = List.of(solutionOption);
+    @Getter
+    private final SzSolutionRepository repository;
+
+    @NotNull
+    @Override
+    public Collection<ValidationResult<SzSubmission>> parseSubmissions(@NotNull ChatInputInteractionEvent event) {
+        return List.of(new ValidationResult.Valid<>(SzSubmission.fromLink(solutionOption.get(event), authorName(event), null)));
+    }
+}
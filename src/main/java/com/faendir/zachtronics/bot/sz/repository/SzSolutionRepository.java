@@ -19,6 +19,7 @@ package com.faendir.zachtronics.bot.sz.repository;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import com.faendir.zachtronics.bot.sz.model.*;
@@ -44,6 +45,7 @@ import static com.faendir.zachtronics.bot.sz.model.SzCategory.*;
 public class SzSolutionRepository extends AbstractSolutionRepository<SzCategory, SzPuzzle, SzScore, SzSubmission, SzRecord, SzSolution> {
     private final SzCategory[][] wikiCategories = {{CP, CL}, {PC, PL}, {LC, LP}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.SHENZHEN_IO;
 
     @Qualifier("szRepository")
@@ -64,22 +66,8 @@ public class SzSolutionRepository extends AbstractSolutionRepository<SzCategory,
     }
 
     @Override
-    protected int frontierCompare(@NotNull SzScore s1, @NotNull SzScore s2) {
-        int r1 = Integer.compare(s1.getCost(), s2.getCost());
-        int r2 = Integer.compare(s1.getPower(), s2.getPower());
-        int r3 = Integer.compare(s1.getLines(), s2.getLines());
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull SzScore score) {
+        return new int[]{score.getCost(), score.getPower(), score.getLines()};
     }
 
     /** allow same-score solution changes only if you are the original author */
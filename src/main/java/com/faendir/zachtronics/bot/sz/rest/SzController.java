@@ -22,22 +22,33 @@ import com.faendir.zachtronics.bot.sz.model.SzCategory;
 import com.faendir.zachtronics.bot.sz.model.SzGroup;
 import com.faendir.zachtronics.bot.sz.model.SzPuzzle;
 import com.faendir.zachtronics.bot.sz.model.SzRecord;
+import com.faendir.zachtronics.bot.sz.model.SzSubmission;
 import com.faendir.zachtronics.bot.sz.repository.SzSolutionRepository;
 import com.faendir.zachtronics.bot.sz.rest.dto.SzCategoryDTO;
 import com.faendir.zachtronics.bot.sz.rest.dto.SzGroupDTO;
 import com.faendir.zachtronics.bot.sz.rest.dto.SzPuzzleDTO;
 import com.faendir.zachtronics.bot.sz.rest.dto.SzRecordDTO;
+import com.faendir.zachtronics.bot.validation.ValidationException;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/sz")
@@ -81,6 +92,15 @@ public class SzController implements GameRestController<SzGroupDTO, SzPuzzleDTO,
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<SzRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        SzCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : SzRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public SzRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         SzPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +112,21 @@ public class SzController implements GameRestController<SzGroupDTO, SzPuzzleDTO,
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        Collection<ValidationResult<SzSubmission>> submissions;
+        try {
+            submissions = List.of(new ValidationResult.Valid<>(SzSubmission.fromData(new String(solution.getBytes(), StandardCharsets.UTF_8), author, null)));
+        }
+        catch (ValidationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static SzPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(SzPuzzle.values())
                      .filter(p -> p.getId().equalsIgnoreCase(puzzleId))
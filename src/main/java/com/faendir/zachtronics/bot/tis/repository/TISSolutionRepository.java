@@ -19,6 +19,7 @@ package com.faendir.zachtronics.bot.tis.repository;
 import com.faendir.zachtronics.bot.git.GitRepository;
 import com.faendir.zachtronics.bot.model.DisplayContext;
 import com.faendir.zachtronics.bot.reddit.RedditService;
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync;
 import com.faendir.zachtronics.bot.reddit.Subreddit;
 import com.faendir.zachtronics.bot.repository.AbstractSolutionRepository;
 import com.faendir.zachtronics.bot.tis.model.*;
@@ -30,21 +31,13 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.CheckReturnValue;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import static com.faendir.zachtronics.bot.tis.model.TISCategory.*;
-import static java.util.stream.Collectors.*;
+import static java.util.stream.Collectors.toList;
 
 @Component
 @RequiredArgsConstructor
@@ -52,6 +45,7 @@ import static java.util.stream.Collectors.*;
 public class TISSolutionRepository extends AbstractSolutionRepository<TISCategory, TISPuzzle, TISScore, TISSubmission, TISRecord, TISSolution> {
     private final TISCategory[][] wikiCategories = {{CN, CI, CX}, {NC, NI, NX}, {IC, IN, IX}};
     private final RedditService redditService;
+    private final RedditWikiSync wikiSync;
     private final Subreddit subreddit = Subreddit.TIS100;
 
     @Qualifier("tisRepository")
@@ -63,6 +57,14 @@ public class TISSolutionRepository extends AbstractSolutionRepository<TISCategor
                                                       .thenComparing(s -> !s.isAchievement())
                                                       .thenComparing(TISScore::isCheating));
     private final List<TISPuzzle> trackedPuzzles = Arrays.stream(TISPuzzle.values()).filter(p -> p.getType() != TISType.SANDBOX).toList();
+    private final TISCategory[][] achievementCategories = {{aCN, aCI, aCX, acCN, acCI, acCX},
+                                                           {aNC, aNI, aNX, acNC, acNI, acNX},
+                                                           {aIC, aIN, aIX, acIC, acIN, acIX}};
+    private final TISCategory[][] cheatingCategories = {{hCN, hCI, hCX, cCN, cCI, cCX},
+                                                        {hNC, hNI, hNX, cNC, cNI, cNX},
+                                                        {hIC, hIN, hIX, cIC, cIN, cIX}};
+    /** generated part of the wiki as of the last render, guarded by itself */
+    private final TISWikiAggregates wikiAggregates = new TISWikiAggregates(trackedPuzzles);
 
     @Override
     protected @NotNull String wikiPageName(TISPuzzle puzzle) {
@@ -75,26 +77,9 @@ public class TISSolutionRepository extends AbstractSolutionRepository<TISCategor
     }
 
     @Override
-    protected int frontierCompare(@NotNull TISScore s1, @NotNull TISScore s2) {
-        int r1 = Integer.compare(s1.getCycles(), s2.getCycles());
-        int r2 = Integer.compare(s1.getNodes(), s2.getNodes());
-        int r3 = Integer.compare(s1.getInstructions(), s2.getInstructions());
-        int r4 = Boolean.compare(!s1.isAchievement(), !s2.isAchievement());
-        int r5 = Boolean.compare(s1.isCheating(), s2.isCheating());
-        int r6 = Boolean.compare(s1.isHardcoded(), s2.isHardcoded());
-
-        if (r1 <= 0 && r2 <= 0 && r3 <= 0 && r4 <= 0 && r5 <= 0 && r6 <= 0) {
-            // s1 dominates
-            return -1;
-        }
-        else if (r1 >= 0 && r2 >= 0 && r3 >= 0 && r4 >= 0 && r5 >= 0 && r6 >= 0) {
-            // s2 dominates
-            return 1;
-        }
-        else {
-            // equal is already captured by the 1st check, this is for "not comparable"
-            return 0;
-        }
+    protected int @NotNull [] frontierMetrics(@NotNull TISScore score) {
+        return new int[]{score.getCycles(), score.getNodes(), score.getInstructions(),
+                         score.isAchievement() ? 0 : 1, score.isCheating() ? 1 : 0, score.isHardcoded() ? 1 : 0};
     }
 
     @Override
@@ -104,180 +89,82 @@ public class TISSolutionRepository extends AbstractSolutionRepository<TISCategor
                !(candidate.getAuthor().equals(solution.getAuthor()) && solution.getDisplayLink() == null);
     }
 
+    /**
+     * The page has data that relies on the whole solution list (like totals), it is kept in {@link #wikiAggregates}
+     * and only the puzzles whose solutions changed since the last render are rendered again
+     */
     @Override
-    protected void updateRedditLeaderboard(@NotNull List<String> lines, @NotNull TISPuzzle puzzle,
-                                           GitRepository.@NotNull ReadWriteAccess access, @NotNull List<TISSolution> solutions) {
-        // we need to update data that relies on the whole solution list (like totals), don't even try a single update
-        lines.clear();
-        try {
-            lines.addAll(rebuildRedditPage(wikiPageName(null), access));
-        }
-        catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-    }
-
-    @Override
-    protected List<String> rebuildRedditPage(String page, GitRepository.ReadWriteAccess access) throws IOException {
+    protected List<String> rebuildRedditPage(String page, @NotNull List<String> wikiLines, GitRepository.@NotNull Snapshot snapshot) {
         final String anchorPoint = "# TIS-100 SEGMENT MAP";
-        List<String> lines = readRedditWiki(page).stream()
-                                                 .takeWhile(l -> !l.equals(anchorPoint))
-                                                 .collect(toList());
-        ListIterator<String> it = lines.listIterator(lines.size());
-
-        Consumer<String> addPuzzleTableHeader =
-            head -> {
-                it.add(String.format("# %s", head));
-                it.add("");
-                it.add("| Puzzle | Cycles | Nodes | Instructions");
-                it.add("| --- | --- | --- | --- | ---");
-            };
-
-        List<TISSolution> allSolutions = new ArrayList<>();
-        Map<TISPuzzle, Map<TISCategory, TISRecord>> data = new EnumMap<>(TISPuzzle.class);
-        for (TISPuzzle puzzle : trackedPuzzles) {
-            Path puzzlePath = getPuzzlePath(access, puzzle);
-            List<TISSolution> solutions = unmarshalSolutions(puzzlePath);
-            allSolutions.addAll(solutions);
-
-            Map<TISCategory, TISRecord> recordMap = new EnumMap<>(TISCategory.class);
-            for (TISSolution solution : solutions) {
-                TISRecord record = solution.extendToRecord(puzzle,
-                                                   makeArchiveLink(puzzle, solution.getScore()),
-                                                   makeArchivePath(puzzlePath, solution.getScore()));
-                for (TISCategory category : solution.getCategories()) {
-                    recordMap.put(category, record);
-                }
+        List<String> lines = wikiLines.stream()
+                                      .takeWhile(l -> !l.equals(anchorPoint))
+                                      .collect(toList());
+        synchronized (wikiAggregates) {
+            for (TISPuzzle puzzle : trackedPuzzles) {
+                List<TISSolution> solutions = unmarshalSolutions(snapshot, puzzle);
+                if (!wikiAggregates.isCurrent(puzzle, solutions))
+                    wikiAggregates.update(puzzle, makeWikiRows(puzzle, getPuzzlePath(snapshot, puzzle), solutions));
             }
-            data.put(puzzle, recordMap);
+            wikiAggregates.render(lines.listIterator(lines.size()));
         }
+        return lines;
+    }
 
-        for (TISGroup group : TISGroup.values()) {
-            int totalCycles = 0;
-            int totalNodes = 0;
-            int totalInstructions = 0;
-            addPuzzleTableHeader.accept(group.getDisplayName());
-            Iterable<TISPuzzle> puzzles = trackedPuzzles.stream().filter(p -> p.getGroup() == group)::iterator;
-            for (TISPuzzle puzzle : puzzles) {
-                Map<TISCategory, TISRecord> recordMap = data.get(puzzle);
-
-                addPuzzleLines(it, puzzle, wikiCategories, recordMap, Markdown.link(puzzle.getDisplayName(), puzzle.getLink()));
-                it.add("|");
-
-                if (recordMap.containsKey(wikiCategories[0][0])) {
-                    totalCycles += recordMap.get(wikiCategories[0][0]).getScore().getCycles();
-                    totalNodes += recordMap.get(wikiCategories[1][0]).getScore().getNodes();
-                    totalInstructions += recordMap.get(wikiCategories[2][0]).getScore().getInstructions();
-                }
+    @NotNull
+    private TISWikiAggregates.PuzzleRows makeWikiRows(@NotNull TISPuzzle puzzle, @NotNull Path puzzlePath, @NotNull List<TISSolution> solutions) {
+        Map<TISCategory, TISRecord> recordMap = new EnumMap<>(TISCategory.class);
+        for (TISSolution solution : solutions) {
+            TISRecord record = solution.extendToRecord(puzzle,
+                                                       makeArchiveLink(puzzle, solution.getScore()),
+                                                       makeArchivePath(puzzlePath, solution.getScore()));
+            for (TISCategory category : solution.getCategories()) {
+                recordMap.put(category, record);
             }
-            it.add(String.format("| **Totals** | **%d** | **%d** | **%d**", totalCycles, totalNodes, totalInstructions));
-            it.add("");
         }
 
-        {
-            int totalCycles = 0;
-            int totalNodes = 0;
-            int totalInstructions = 0;
-            addPuzzleTableHeader.accept("Achievement Solutions");
-            Iterable<TISPuzzle> achievPuzzles = trackedPuzzles.stream().filter(p -> p.getAchievement() != null)::iterator;
-            TISCategory[][] achievCategories = {{aCN, aCI, aCX, acCN, acCI, acCX},
-                                                {aNC, aNI, aNX, acNC, acNI, acNX},
-                                                {aIC, aIN, aIX, acIC, acIN, acIX}};
-            for (TISPuzzle puzzle : achievPuzzles) {
-                Map<TISCategory, TISRecord> recordMap = data.get(puzzle);
-
-                String link = puzzle.getLink() + "?visualizerFilterTIS-" + puzzle.getId().replace('.', '-') + ".modifiers.achievement=true";
-                String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link) + " (" + puzzle.getAchievement() + ")";
-                addPuzzleLines(it, puzzle, achievCategories, recordMap, puzzleHeader);
-                it.add("|");
-
-                if (recordMap.containsKey(achievCategories[0][0])) {
-                    totalCycles += recordMap.get(achievCategories[0][0]).getScore().getCycles();
-                    totalNodes += recordMap.get(achievCategories[1][0]).getScore().getNodes();
-                    totalInstructions += recordMap.get(achievCategories[2][0]).getScore().getInstructions();
-                }
-            }
-            it.add(String.format("| **Totals** | **%d** | **%d** | **%d**", totalCycles, totalNodes, totalInstructions));
-            it.add("");
+        List<String> groupLines = new ArrayList<>();
+        addPuzzleLines(groupLines.listIterator(), puzzle, wikiCategories, recordMap, Markdown.link(puzzle.getDisplayName(), puzzle.getLink()));
+        int[] groupTotals = new int[3];
+        if (recordMap.containsKey(wikiCategories[0][0])) {
+            groupTotals[0] = recordMap.get(wikiCategories[0][0]).getScore().getCycles();
+            groupTotals[1] = recordMap.get(wikiCategories[1][0]).getScore().getNodes();
+            groupTotals[2] = recordMap.get(wikiCategories[2][0]).getScore().getInstructions();
         }
 
-        {
-            int totalCycles = 0;
-            int totalNodes = 0;
-            int totalInstructions = 0;
-            addPuzzleTableHeader.accept("Cheating Solutions");
-            TISCategory[][] cheatCategories = {{hCN, hCI, hCX, cCN, cCI, cCX},
-                                               {hNC, hNI, hNX, cNC, cNI, cNX},
-                                               {hIC, hIN, hIX, cIC, cIN, cIX}};
-            for (TISPuzzle puzzle : trackedPuzzles) {
-                // copy to edit
-                Map<TISCategory, TISRecord> recordMap = new EnumMap<>(data.get(puzzle));
-                recordMap.values().removeIf(r -> !r.getScore().isCheating() || r.getScore().isAchievement());
-                if (recordMap.isEmpty())
-                    continue; // there is no cheating solve at all
-
-                String link = puzzle.getLink() + "?visualizerFilterTIS-" + puzzle.getId().replace('.', '-') + ".modifiers.cheating=true";
-                String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link);
-                addPuzzleLines(it, puzzle, cheatCategories, recordMap, puzzleHeader);
-                it.add("|");
-
-                if (recordMap.containsKey(cheatCategories[0][0]))
-                    totalCycles += recordMap.get(cheatCategories[0][0]).getScore().getCycles();
-                if (recordMap.containsKey(cheatCategories[1][0]))
-                    totalNodes += recordMap.get(cheatCategories[1][0]).getScore().getNodes();
-                if (recordMap.containsKey(cheatCategories[2][0]))
-                    totalInstructions += recordMap.get(cheatCategories[2][0]).getScore().getInstructions();
+        List<String> achievementLines = new ArrayList<>();
+        int[] achievementTotals = new int[3];
+        if (puzzle.getAchievement() != null) {
+            String link = puzzle.getLink() + "?visualizerFilterTIS-" + puzzle.getId().replace('.', '-') + ".modifiers.achievement=true";
+            String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link) + " (" + puzzle.getAchievement() + ")";
+            addPuzzleLines(achievementLines.listIterator(), puzzle, achievementCategories, recordMap, puzzleHeader);
+
+            if (recordMap.containsKey(achievementCategories[0][0])) {
+                achievementTotals[0] = recordMap.get(achievementCategories[0][0]).getScore().getCycles();
+                achievementTotals[1] = recordMap.get(achievementCategories[1][0]).getScore().getNodes();
+                achievementTotals[2] = recordMap.get(achievementCategories[2][0]).getScore().getInstructions();
             }
-            it.add(String.format("| **Totals** | **%d** | **%d** | **%d**", totalCycles, totalNodes, totalInstructions));
-            it.add("");
         }
 
-        Consumer<String> addLbTableHeader =
-            head -> {
-                it.add(String.format("# %s", head));
-                it.add("");
-                it.add("| Solutions | Name(s)");
-                it.add("| --- | --- ");
-            };
-
-        addLbTableHeader.accept("Most record solutions");
-        metaLeaderboardStream(allSolutions, s -> !s.getCategories().isEmpty()).forEach(it::add);
-        it.add("");
-        addLbTableHeader.accept("Most frontier solutions");
-        metaLeaderboardStream(allSolutions, s -> true).forEach(it::add);
-
-        return lines;
-    }
-
-    private static final DecimalFormat format = new DecimalFormat("0.##", new DecimalFormatSymbols(Locale.ENGLISH));
-    @CheckReturnValue
-    private static Stream<String> metaLeaderboardStream(@NotNull List<TISSolution> allSolutions, Predicate<TISSolution> filterSol) {
-        Map<String, Double> authorToAmount = new HashMap<>();
-        for (TISSolution solution: allSolutions) {
-            if (filterSol.test(solution)) {
-                String[] authors;
-                if (solution.getAuthor().contains("/")) {
-                    authors = solution.getAuthor().split("/");
-                }
-                else {
-                    authors = new String[]{solution.getAuthor()};
-                }
-                double part = 1.0 / authors.length;
-                for (String author : authors)
-                    authorToAmount.merge(author, part, Double::sum);
-            }
+        List<String> cheatingLines = new ArrayList<>();
+        int[] cheatingTotals = new int[3];
+        // copy to edit
+        Map<TISCategory, TISRecord> cheatingRecordMap = new EnumMap<>(recordMap);
+        cheatingRecordMap.values().removeIf(r -> !r.getScore().isCheating() || r.getScore().isAchievement());
+        if (!cheatingRecordMap.isEmpty()) { // otherwise there is no cheating solve at all
+            String link = puzzle.getLink() + "?visualizerFilterTIS-" + puzzle.getId().replace('.', '-') + ".modifiers.cheating=true";
+            String puzzleHeader = Markdown.link(puzzle.getDisplayName(), link);
+            addPuzzleLines(cheatingLines.listIterator(), puzzle, cheatingCategories, cheatingRecordMap, puzzleHeader);
+
+            if (cheatingRecordMap.containsKey(cheatingCategories[0][0]))
+                cheatingTotals[0] = cheatingRecordMap.get(cheatingCategories[0][0]).getScore().getCycles();
+            if (cheatingRecordMap.containsKey(cheatingCategories[1][0]))
+                cheatingTotals[1] = cheatingRecordMap.get(cheatingCategories[1][0]).getScore().getNodes();
+            if (cheatingRecordMap.containsKey(cheatingCategories[2][0]))
+                cheatingTotals[2] = cheatingRecordMap.get(cheatingCategories[2][0]).getScore().getInstructions();
         }
-        return authorToAmount.entrySet()
-                             .stream()
-                             .collect(groupingBy(Map.Entry::getValue, mapping(Map.Entry::getKey, toList())))
-                             .entrySet()
-                             .stream()
-                             .sorted(Collections.reverseOrder(Map.Entry.comparingByKey()))
-                             .map(e -> "| " + format.format(e.getKey()) + " | " + e.getValue()
-                                                                                   .stream()
-                                                                                   .sorted(String.CASE_INSENSITIVE_ORDER)
-                                                                                   .map(Markdown::escape)
-                                                                                   .collect(joining(", ")));
+
+        return new TISWikiAggregates.PuzzleRows(solutions, groupLines, groupTotals, achievementLines, achievementTotals,
+                                                cheatingLines, cheatingTotals);
     }
 
     @Override
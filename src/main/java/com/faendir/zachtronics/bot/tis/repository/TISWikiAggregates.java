@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.tis.repository;
+
+import com.faendir.zachtronics.bot.tis.model.TISGroup;
+import com.faendir.zachtronics.bot.tis.model.TISPuzzle;
+import com.faendir.zachtronics.bot.tis.model.TISSolution;
+import com.faendir.zachtronics.bot.utils.Markdown;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * The generated part of the TIS wiki page, kept up to date one puzzle at a time.
+ * Totals and author shares are adjusted by the difference between the old and new rows of a changed puzzle,
+ * and only the sections a change touches are rendered again.
+ * Not thread safe.
+ */
+final class TISWikiAggregates {
+    /** author shares are counted in these units, so splits between up to 12 authors add and subtract exactly */
+    static final long SHARE_UNITS = 27720;
+    private static final DecimalFormat format = new DecimalFormat("0.##", new DecimalFormatSymbols(Locale.ENGLISH));
+    private static final Predicate<TISSolution> RECORD_FILTER = s -> !s.getCategories().isEmpty();
+
+    /**
+     * Pre-rendered table rows of a puzzle
+     * @param solutions the rows were rendered from
+     * @param achievementLines empty if the puzzle has no achievement
+     * @param cheatingLines empty if the puzzle has no cheating solutions
+     * @param groupTotals cycles, nodes and instructions the puzzle adds to the totals of its table, same for the others
+     */
+    record PuzzleRows(@NotNull List<TISSolution> solutions,
+                      @NotNull List<String> groupLines, int @NotNull [] groupTotals,
+                      @NotNull List<String> achievementLines, int @NotNull [] achievementTotals,
+                      @NotNull List<String> cheatingLines, int @NotNull [] cheatingTotals) {
+    }
+
+    private final List<TISPuzzle> puzzles;
+    private final Map<TISPuzzle, PuzzleRows> rows = new EnumMap<>(TISPuzzle.class);
+
+    private final Map<TISGroup, int[]> groupTotals = new EnumMap<>(TISGroup.class);
+    private final int[] achievementTotals = new int[3];
+    private final int[] cheatingTotals = new int[3];
+    private final Map<String, Long> recordShares = new HashMap<>();
+    private final Map<String, Long> frontierShares = new HashMap<>();
+
+    /** rendered sections, null when they need to be rendered again */
+    private final Map<TISGroup, List<String>> groupSections = new EnumMap<>(TISGroup.class);
+    private List<String> achievementSection;
+    private List<String> cheatingSection;
+    private List<String> recordLeaderboard;
+    private List<String> frontierLeaderboard;
+
+    /** @param puzzles in wiki order */
+    TISWikiAggregates(@NotNull List<TISPuzzle> puzzles) {
+        this.puzzles = puzzles;
+        for (TISGroup group : TISGroup.values()) {
+            groupTotals.put(group, new int[3]);
+        }
+    }
+
+    /** whether the rows of the puzzle were rendered from these solutions */
+    boolean isCurrent(@NotNull TISPuzzle puzzle, @NotNull List<TISSolution> solutions) {
+        PuzzleRows current = rows.get(puzzle);
+        return current != null && (current.solutions() == solutions || current.solutions().equals(solutions));
+    }
+
+    void update(@NotNull TISPuzzle puzzle, @NotNull PuzzleRows newRows) {
+        PuzzleRows oldRows = rows.put(puzzle, newRows);
+        if (oldRows == null)
+            oldRows = new PuzzleRows(List.of(), List.of(), new int[3], List.of(), new int[3], List.of(), new int[3]);
+
+        addTotals(groupTotals.get(puzzle.getGroup()), oldRows.groupTotals(), newRows.groupTotals());
+        groupSections.remove(puzzle.getGroup());
+
+        addTotals(achievementTotals, oldRows.achievementTotals(), newRows.achievementTotals());
+        if (!oldRows.achievementLines().isEmpty() || !newRows.achievementLines().isEmpty())
+            achievementSection = null;
+
+        addTotals(cheatingTotals, oldRows.cheatingTotals(), newRows.cheatingTotals());
+        if (!oldRows.cheatingLines().isEmpty() || !newRows.cheatingLines().isEmpty())
+            cheatingSection = null;
+
+        if (addShares(recordShares, oldRows.solutions(), newRows.solutions(), RECORD_FILTER))
+            recordLeaderboard = null;
+        if (addShares(frontierShares, oldRows.solutions(), newRows.solutions(), s -> true))
+            frontierLeaderboard = null;
+    }
+
+    private static void addTotals(int @NotNull [] totals, int @NotNull [] removed, int @NotNull [] added) {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += added[i] - removed[i];
+        }
+    }
+
+    /** @return whether any share changed */
+    private static boolean addShares(@NotNull Map<String, Long> shares, @NotNull List<TISSolution> removed,
+                                     @NotNull List<TISSolution> added, @NotNull Predicate<TISSolution> filter) {
+        Map<String, Long> delta = new HashMap<>();
+        for (TISSolution solution : removed) {
+            if (filter.test(solution))
+                addShare(delta, solution.getAuthor(), -1);
+        }
+        for (TISSolution solution : added) {
+            if (filter.test(solution))
+                addShare(delta, solution.getAuthor(), 1);
+        }
+        delta.values().removeIf(d -> d == 0);
+        delta.forEach((author, d) -> shares.merge(author, d, (a, b) -> a + b == 0 ? null : a + b));
+        return !delta.isEmpty();
+    }
+
+    /** authors of a shared solution are separated by slashes and split it evenly */
+    private static void addShare(@NotNull Map<String, Long> shares, @NotNull String author, int sign) {
+        String[] authors = author.split("/");
+        long part = SHARE_UNITS / authors.length;
+        for (String a : authors) {
+            shares.merge(a, sign * part, Long::sum);
+        }
+    }
+
+    /** adds every generated section, rendering the ones that changed since the last call */
+    void render(@NotNull ListIterator<String> it) {
+        for (TISGroup group : TISGroup.values()) {
+            List<String> section = groupSections.computeIfAbsent(group, g -> puzzleTable(
+                g.getDisplayName(), puzzles.stream().filter(p -> p.getGroup() == g).map(p -> rows.get(p).groupLines()).toList(),
+                groupTotals.get(g)));
+            section.forEach(it::add);
+        }
+        if (achievementSection == null) {
+            achievementSection = puzzleTable("Achievement Solutions", puzzles.stream()
+                                                                             .filter(p -> p.getAchievement() != null)
+                                                                             .map(p -> rows.get(p).achievementLines())
+                                                                             .toList(), achievementTotals);
+        }
+        achievementSection.forEach(it::add);
+        if (cheatingSection == null) {
+            cheatingSection = puzzleTable("Cheating Solutions", puzzles.stream()
+                                                                       .map(p -> rows.get(p).cheatingLines())
+                                                                       .toList(), cheatingTotals);
+        }
+        cheatingSection.forEach(it::add);
+
+        if (recordLeaderboard == null)
+            recordLeaderboard = leaderboardTable("Most record solutions", recordShares);
+        recordLeaderboard.forEach(it::add);
+        it.add("");
+        if (frontierLeaderboard == null)
+            frontierLeaderboard = leaderboardTable("Most frontier solutions", frontierShares);
+        frontierLeaderboard.forEach(it::add);
+    }
+
+    @NotNull
+    private static List<String> puzzleTable(@NotNull String head, @NotNull List<List<String>> puzzleLines, int @NotNull [] totals) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("# %s", head));
+        lines.add("");
+        lines.add("| Puzzle | Cycles | Nodes | Instructions");
+        lines.add("| --- | --- | --- | --- | ---");
+        for (List<String> puzzle : puzzleLines) {
+            if (puzzle.isEmpty())
+                continue;
+            lines.addAll(puzzle);
+            lines.add("|");
+        }
+        lines.add(String.format("| **Totals** | **%d** | **%d** | **%d**", totals[0], totals[1], totals[2]));
+        lines.add("");
+        return lines;
+    }
+
+    @NotNull
+    private static List<String> leaderboardTable(@NotNull String head, @NotNull Map<String, Long> shares) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("# %s", head));
+        lines.add("");
+        lines.add("| Solutions | Name(s)");
+        lines.add("| --- | --- ");
+        shares.entrySet()
+              .stream()
+              .collect(groupingBy(Map.Entry::getValue, mapping(Map.Entry::getKey, toList())))
+              .entrySet()
+              .stream()
+              .sorted(Collections.reverseOrder(Map.Entry.comparingByKey()))
+              .map(e -> "| " + format.format((double) e.getKey() / SHARE_UNITS) + " | " + e.getValue()
+                                                                                         .stream()
+                                                                                         .sorted(String.CASE_INSENSITIVE_ORDER)
+                                                                                         .map(Markdown::escape)
+                                                                                         .collect(joining(", ")))
+              .forEach(lines::add);
+        return lines;
+    }
+}
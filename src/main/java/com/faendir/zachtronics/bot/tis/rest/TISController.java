@@ -22,22 +22,33 @@ import com.faendir.zachtronics.bot.tis.model.TISCategory;
 import com.faendir.zachtronics.bot.tis.model.TISGroup;
 import com.faendir.zachtronics.bot.tis.model.TISPuzzle;
 import com.faendir.zachtronics.bot.tis.model.TISRecord;
+import com.faendir.zachtronics.bot.tis.model.TISSubmission;
 import com.faendir.zachtronics.bot.tis.repository.TISSolutionRepository;
 import com.faendir.zachtronics.bot.tis.rest.dto.TISCategoryDTO;
 import com.faendir.zachtronics.bot.tis.rest.dto.TISGroupDTO;
 import com.faendir.zachtronics.bot.tis.rest.dto.TISPuzzleDTO;
 import com.faendir.zachtronics.bot.tis.rest.dto.TISRecordDTO;
+import com.faendir.zachtronics.bot.validation.ValidationException;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/tis")
@@ -81,6 +92,15 @@ public class TISController implements GameRestController<TISGroupDTO, TISPuzzleD
                          .toList();
     }
 
+    @Override
+    @NotNull
+    public List<TISRecordDTO> findCategoryRecords(@NotNull String categoryId) {
+        TISCategory category = findCategory(categoryId);
+        return repository.findAll(category).values().stream()
+                         .map(r -> r == null ? null : TISRecordDTO.fromCategoryRecord(new CategoryRecord<>(r, EnumSet.of(category))))
+                         .toList();
+    }
+
     @Override
     public TISRecordDTO getRecord(@NotNull String puzzleId, @NotNull String categoryId) {
         TISPuzzle puzzle = findPuzzle(puzzleId);
@@ -92,6 +112,22 @@ public class TISController implements GameRestController<TISGroupDTO, TISPuzzleD
             return null;
     }
 
+    /** reports what the solution would beat, without submitting it */
+    @PostMapping(path = "/stats", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> stats(@NotNull @RequestParam MultipartFile solution, @NotNull @RequestParam String puzzleId,
+                                           @NotNull @RequestParam(defaultValue = GameRestController.ANONYMOUS) String author) throws IOException {
+        TISPuzzle puzzle = findPuzzle(puzzleId);
+        Collection<ValidationResult<TISSubmission>> submissions;
+        try {
+            submissions = List.of(new ValidationResult.Valid<>(TISSubmission.fromData(new String(solution.getBytes(), StandardCharsets.UTF_8), puzzle, author, null)));
+        }
+        catch (ValidationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return statsOf(repository.submitAllDryRun(submissions));
+    }
+
     private static TISPuzzle findPuzzle(String puzzleId) {
         return Arrays.stream(TISPuzzle.values())
                      .filter(p -> p.getId().equalsIgnoreCase(puzzleId))
@@ -26,4 +26,10 @@ class GitProperties {
     lateinit var username: String
     var webhookSecret: String = " "
     var readonlyMode: Boolean = false
+    /** how many repositories are cloned concurrently on startup */
+    var cloneThreads: Int = 4
+    /** directory to keep working copies in across restarts, temporary directories are used if unset */
+    var repositoriesRoot: String? = null
+    /** lets submissions to different puzzles of the same game run in parallel, only serializing their commits */
+    var stripedLocking: Boolean = true
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package com.faendir.zachtronics.bot.config
 
 import org.springframework.boot.context.properties.ConfigurationProperties
 import org.springframework.context.annotation.Configuration
+import java.time.Duration
 
 @Configuration
 @ConfigurationProperties(prefix = "reddit")
@@ -26,4 +27,14 @@ class RedditProperties {
     lateinit var clientId: String
     lateinit var username: String
     lateinit var password: String
+    /** how long a wiki page has to go without changes before it is synced */
+    var wikiSyncQuietPeriod: Duration = Duration.ofSeconds(30)
+    /** how long a wiki page with a steady stream of changes is synced after at the latest */
+    var wikiSyncMaxDelay: Duration = Duration.ofMinutes(5)
+    /** how many pages a full wiki rebuild renders at the same time */
+    var wikiRenderParallelism: Int = Runtime.getRuntime().availableProcessors()
+    /** how many wiki uploads can be in flight at the same time */
+    var wikiUploadConcurrency: Int = 4
+    /** reddit allows 60 requests per minute, leave some room for everything else */
+    var wikiUploadsPerSecond: Double = 0.5
 }
\ No newline at end of file
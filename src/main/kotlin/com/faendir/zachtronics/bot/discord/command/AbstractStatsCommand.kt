@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.discord.command
+
+import com.faendir.zachtronics.bot.discord.Colors
+import com.faendir.zachtronics.bot.discord.command.security.NotSecured
+import com.faendir.zachtronics.bot.discord.command.security.Secured
+import com.faendir.zachtronics.bot.discord.embed.MultiMessageSafeEmbedMessageBuilder
+import com.faendir.zachtronics.bot.discord.embed.SafeMessageBuilder
+import com.faendir.zachtronics.bot.model.Category
+import com.faendir.zachtronics.bot.model.DisplayContext
+import com.faendir.zachtronics.bot.model.Puzzle
+import com.faendir.zachtronics.bot.model.Record
+import com.faendir.zachtronics.bot.model.Submission
+import com.faendir.zachtronics.bot.repository.SolutionRepository
+import com.faendir.zachtronics.bot.repository.SubmitResult
+import com.faendir.zachtronics.bot.utils.embedCategoryRecords
+import com.faendir.zachtronics.bot.utils.orEmpty
+import com.faendir.zachtronics.bot.utils.smartFormat
+import com.faendir.zachtronics.bot.utils.user
+import com.faendir.zachtronics.bot.validation.ValidationResult
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent
+import kotlin.jvm.optionals.getOrNull
+
+/** tells what a submission would beat, without archiving anything */
+abstract class AbstractStatsCommand<C : Category, P : Puzzle<C>, S : Submission<C, P>, R : Record<C>> : Command.BasicLeaf() {
+    override val name = "stats"
+    override val description = "Get information about a solution"
+    override val ephemeral: Boolean = true
+    override val secured: Secured = NotSecured
+
+    protected abstract val repository: SolutionRepository<C, P, S, R>
+
+    override fun handleEvent(event: ChatInputInteractionEvent): SafeMessageBuilder {
+        val validationResults = parseSubmissions(event)
+        return if (validationResults.size == 1) {
+            when (val result = validationResults.first()) {
+                is ValidationResult.Valid -> statsOf(result.submission, repository.submitDryRun(result.submission))
+                else -> throw IllegalArgumentException(result.message)
+            }
+        } else statsOfAll(validationResults)
+    }
+
+    private fun statsOf(submission: S, result: SubmitResult<R, C>): MultiMessageSafeEmbedMessageBuilder {
+        val embed = MultiMessageSafeEmbedMessageBuilder()
+            .title("Stats: *${submission.puzzle.displayName}*")
+            .url(submission.puzzle.link)
+        val score = "`${submission.score.toDisplayString(DisplayContext.discord())}`"
+        return when (result) {
+            is SubmitResult.Success -> {
+                val beatenCategories: List<C> = result.beatenRecords.flatMap { it.categories }
+                embed.color(Colors.SUCCESS)
+                    .description(
+                        score
+                                + (if (beatenCategories.isEmpty()) " would be included in the pareto frontier." else " would be ${
+                            beatenCategories.smartFormat(submission.puzzle.supportedCategories)
+                        }")
+                                + (result.message.orEmpty(prefix = "\n"))
+                                + (if (result.beatenRecords.isNotEmpty()) "\nWould beat:" else "")
+                    )
+                    .embedCategoryRecords(result.beatenRecords, submission.puzzle.supportedCategories)
+            }
+
+            is SubmitResult.AlreadyPresent, is SubmitResult.Updated ->
+                embed.color(Colors.UNCHANGED)
+                    .description("$score was already submitted.")
+
+            is SubmitResult.NothingBeaten ->
+                embed.color(Colors.UNCHANGED)
+                    .description("$score is beaten by:")
+                    .embedCategoryRecords(result.records, submission.puzzle.supportedCategories)
+
+            is SubmitResult.Failure -> throw IllegalArgumentException(result.message)
+        }
+    }
+
+    private fun statsOfAll(validationResults: Collection<ValidationResult<S>>): MultiMessageSafeEmbedMessageBuilder {
+        val submissionResults = repository.submitAllDryRun(validationResults)
+        val successes = submissionResults.count { it is SubmitResult.Success }
+        val embed = MultiMessageSafeEmbedMessageBuilder()
+            .title("Stats: $successes solution${if (successes == 1) "" else "s"} would be added")
+            .color(if (successes != 0) Colors.SUCCESS else Colors.UNCHANGED)
+        for ((validationResult, submitResult) in validationResults.zip(submissionResults)) {
+            val name = when (validationResult) {
+                is ValidationResult.Unparseable -> "*Failed*"
+                else -> "*${validationResult.submission.puzzle.displayName}*" +
+                        ((submitResult as? SubmitResult.Success)?.beatenRecords
+                            ?.flatMap { it.categories }
+                            ?.takeIf { it.isNotEmpty() }
+                            ?.smartFormat(validationResult.submission.puzzle.supportedCategories)
+                            .orEmpty(prefix = " "))
+            }
+            val value = when (validationResult) {
+                is ValidationResult.Valid<S>, is ValidationResult.Invalid<S> -> {
+                    val score = validationResult.submission.score.toDisplayString(DisplayContext.discord())
+                    when (submitResult) {
+                        is SubmitResult.Success -> "`$score` would be added."
+                        is SubmitResult.Updated -> "`$score` would be updated."
+                        is SubmitResult.AlreadyPresent -> "`$score` was already submitted."
+                        is SubmitResult.NothingBeaten -> "`$score` would not beat anything."
+                        is SubmitResult.Failure -> "`$score` failed.\n${submitResult.message}"
+                    }
+                }
+                is ValidationResult.Unparseable -> validationResult.message
+            }
+            embed.addField(name, value, true)
+        }
+        return embed
+    }
+
+    abstract fun parseSubmissions(event: ChatInputInteractionEvent): Collection<ValidationResult<S>>
+
+    /** stats don't go on the leaderboard, the name only matters for same-score rules */
+    protected fun authorName(event: ChatInputInteractionEvent): String = event.user().let { it.globalName.getOrNull() ?: it.username }
+}
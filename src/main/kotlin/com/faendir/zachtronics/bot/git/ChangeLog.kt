@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.git
+
+import com.google.common.cache.Cache
+import com.google.common.cache.CacheBuilder
+import kotlinx.datetime.Instant
+import kotlinx.datetime.toJavaInstant
+import org.eclipse.jgit.diff.DiffEntry
+import org.eclipse.jgit.diff.DiffFormatter
+import org.eclipse.jgit.errors.MissingObjectException
+import org.eclipse.jgit.lib.Config
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.revwalk.RevCommit
+import org.eclipse.jgit.revwalk.RevWalk
+import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter
+import org.eclipse.jgit.util.io.DisabledOutputStream
+import java.util.*
+
+/**
+ * Net changes of the files matching [pathFilter] between the state before an instant and the head of a repository, like a `git diff`:
+ * a file added and removed again in between doesn't show up.
+ * Only the commits after the instant are walked and only trees that differ are descended into,
+ * the changes of the last few ranges are kept so paging through them doesn't diff again.
+ * Only blob ids are kept, contents are left to the caller to load for the changes it actually serves.
+ */
+class ChangeLog(private val repository: GitRepository, private val pathFilter: (String) -> Boolean) {
+    /** @param base null if the range starts before the first commit */
+    private data class Range(val base: ObjectId?, val target: ObjectId)
+
+    /** in path order */
+    private val ranges: Cache<Range, List<LoggedChange>> = CacheBuilder.newBuilder().maximumSize(16).build()
+
+    /**
+     * @param cursor continues a previous slice of the same [since], it pins the head the slice was taken from
+     * @throws IllegalArgumentException if the cursor is malformed or refers to a commit no longer in the repository
+     */
+    fun slice(since: Instant, cursor: String?, limit: Int): Slice {
+        require(limit > 0) { "limit must be positive" }
+        var targetId: ObjectId? = null
+        var offset = 0
+        if (cursor != null) {
+            val parts = cursor.split(':')
+            require(parts.size == 2 && ObjectId.isId(parts[0])) { "Invalid cursor $cursor" }
+            targetId = ObjectId.fromString(parts[0])
+            offset = parts[1].toIntOrNull()?.takeIf { it >= 0 } ?: throw IllegalArgumentException("Invalid cursor $cursor")
+        }
+        repository.acquireSnapshot().use { snapshot ->
+            RevWalk(snapshot.reader).use { walk ->
+                val target = try {
+                    walk.parseCommit(targetId ?: snapshot.commitId)
+                } catch (e: MissingObjectException) {
+                    throw IllegalArgumentException("Unknown cursor $cursor")
+                }
+                val base = baseOf(walk, target, since)
+                val range = Range(base?.id, target.id)
+                val changes = ranges.getIfPresent(range) ?: diff(snapshot, base, target).also { ranges.put(range, it) }
+                val end = minOf(changes.size, offset + limit)
+                val next = if (end < changes.size) "${target.name}:$end" else null
+                return Slice(changes.subList(minOf(offset, end), end), next)
+            }
+        }
+    }
+
+    /** @return the first-parent ancestor of [target] that was current at [since], null if that was before the first commit */
+    private fun baseOf(walk: RevWalk, target: RevCommit, since: Instant): RevCommit? {
+        walk.reset()
+        walk.isFirstParent = true
+        walk.revFilter = CommitTimeRevFilter.after(Date.from(since.toJavaInstant()))
+        walk.markStart(target)
+        // the walk stops at the first commit that is too old, so only the requested range is visited
+        val oldest = walk.lastOrNull() ?: return target
+        return oldest.parents.firstOrNull()?.let { walk.parseCommit(it) }
+    }
+
+    private fun diff(snapshot: GitRepository.Snapshot, base: RevCommit?, target: RevCommit): List<LoggedChange> {
+        if (base == target) return emptyList()
+        return DiffFormatter(DisabledOutputStream.INSTANCE).use { diffFormatter ->
+            diffFormatter.setReader(snapshot.reader, Config())
+            diffFormatter.scan(base?.tree, target.tree).mapNotNull { diff ->
+                when (diff.changeType) {
+                    DiffEntry.ChangeType.DELETE -> LoggedChange(diff.changeType, diff.oldPath, diff.oldId.toObjectId())
+                    else -> LoggedChange(diff.changeType, diff.newPath, diff.newId.toObjectId())
+                }.takeIf { pathFilter(it.path) }
+            }
+        }
+    }
+
+    data class LoggedChange(val type: DiffEntry.ChangeType, val path: String, val blobId: ObjectId)
+
+    /** @param next cursor for the following slice, null if this slice reached the end */
+    data class Slice(val changes: List<LoggedChange>, val next: String?)
+}
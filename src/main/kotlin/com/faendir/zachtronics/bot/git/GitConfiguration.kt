@@ -17,38 +17,55 @@
 package com.faendir.zachtronics.bot.git
 
 import com.faendir.zachtronics.bot.config.GitProperties
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import io.micrometer.core.instrument.MeterRegistry
+import jakarta.annotation.PreDestroy
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import org.springframework.context.annotation.Profile
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
 
 @Configuration
 @Profile("!test")
-class GitConfiguration(private val gitProperties: GitProperties) {
+class GitConfiguration(private val gitProperties: GitProperties, private val meterRegistry: MeterRegistry) {
+    /** repositories clone in parallel, so startup takes as long as the slowest clone */
+    private val cloneExecutor: ExecutorService = Executors.newFixedThreadPool(
+        gitProperties.cloneThreads,
+        ThreadFactoryBuilder().setNameFormat("git-clone-%d").setDaemon(true).build()
+    )
+
+    @PreDestroy
+    fun shutdown() {
+        cloneExecutor.shutdownNow()
+    }
+
+    private fun gitRepository(name: String, url: String) = GitRepository(gitProperties, name, url, initExecutor = cloneExecutor, meterRegistry = meterRegistry)
 
     @Bean("cwRepository")
-    fun cwRepository() = GitRepository(gitProperties, "chipwizard-leaderboard", "https://github.com/lastcallbbs-community-developers/chipwizard-leaderboard.git")
+    fun cwRepository() = gitRepository("chipwizard-leaderboard", "https://github.com/lastcallbbs-community-developers/chipwizard-leaderboard.git")
 
     @Bean("exaRepository")
-    fun exaRepository() = GitRepository(gitProperties, "exapunks-leaderboard", "https://github.com/12345ieee/exapunks-leaderboard.git")
+    fun exaRepository() = gitRepository("exapunks-leaderboard", "https://github.com/12345ieee/exapunks-leaderboard.git")
 
     @Bean("fcRepository")
-    fun fcRepository() = GitRepository(gitProperties, "foodcourt-leaderboard", "https://github.com/lastcallbbs-community-developers/foodcourt-leaderboard.git")
+    fun fcRepository() = gitRepository("foodcourt-leaderboard", "https://github.com/lastcallbbs-community-developers/foodcourt-leaderboard.git")
 
     @Bean("fpRepository")
-    fun fpRepository() = GitRepository(gitProperties, "forbidden-path-leaderboard", "https://github.com/lastcallbbs-community-developers/forbidden-path-leaderboard.git")
+    fun fpRepository() = gitRepository("forbidden-path-leaderboard", "https://github.com/lastcallbbs-community-developers/forbidden-path-leaderboard.git")
 
     @Bean("ifRepository")
-    fun ifRepository() = GitRepository(gitProperties, "infinifactory-leaderboard", "https://github.com/12345ieee/infinifactory-leaderboard.git")
+    fun ifRepository() = gitRepository("infinifactory-leaderboard", "https://github.com/12345ieee/infinifactory-leaderboard.git")
 
     @Bean("omLeaderboardRepository")
-    fun omLeaderboardRepository() = GitRepository(gitProperties, "om-leaderboard", "https://github.com/F43nd1r/om-leaderboard.git")
+    fun omLeaderboardRepository() = gitRepository("om-leaderboard", "https://github.com/F43nd1r/om-leaderboard.git")
 
     @Bean("scArchiveRepository")
-    fun scArchiveRepository() = GitRepository(gitProperties, "sc-archive", "https://github.com/spacechem-community-developers/spacechem-archive.git")
+    fun scArchiveRepository() = gitRepository("sc-archive", "https://github.com/spacechem-community-developers/spacechem-archive.git")
 
     @Bean("szRepository")
-    fun szRepository() = GitRepository(gitProperties, "shenzhenIO-leaderboard", "https://github.com/12345ieee/shenzhenIO-leaderboard.git")
+    fun szRepository() = gitRepository("shenzhenIO-leaderboard", "https://github.com/12345ieee/shenzhenIO-leaderboard.git")
 
     @Bean("tisRepository")
-    fun tisRepository() = GitRepository(gitProperties, "tis-leaderboard", "https://github.com/12345ieee/tis100-leaderboard.git")
+    fun tisRepository() = gitRepository("tis-leaderboard", "https://github.com/12345ieee/tis100-leaderboard.git")
 }
\ No newline at end of file
@@ -20,204 +20,579 @@ import com.faendir.zachtronics.bot.config.GitProperties
 import com.faendir.zachtronics.bot.model.Puzzle
 import com.faendir.zachtronics.bot.model.Score
 import com.google.common.util.concurrent.CycleDetectingLockFactory
+import com.google.common.util.concurrent.MoreExecutors
+import com.google.common.util.concurrent.Striped
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.Tags
+import io.micrometer.core.instrument.Timer
 import jakarta.annotation.PreDestroy
-import kotlinx.datetime.Instant
-import kotlinx.datetime.toJavaInstant
 import org.eclipse.jgit.api.Git
+import org.eclipse.jgit.api.MergeCommand
 import org.eclipse.jgit.api.ResetCommand
 import org.eclipse.jgit.api.Status
 import org.eclipse.jgit.diff.DiffEntry
 import org.eclipse.jgit.diff.DiffFormatter
+import org.eclipse.jgit.errors.MissingObjectException
 import org.eclipse.jgit.lib.Config
 import org.eclipse.jgit.lib.Constants
-import org.eclipse.jgit.lib.ObjectLoader
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectReader
 import org.eclipse.jgit.revwalk.RevCommit
-import org.eclipse.jgit.revwalk.RevSort
 import org.eclipse.jgit.revwalk.RevWalk
-import org.eclipse.jgit.revwalk.filter.CommitTimeRevFilter
+import org.eclipse.jgit.transport.RemoteRefUpdate
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider
 import org.eclipse.jgit.treewalk.TreeWalk
+import org.eclipse.jgit.util.io.DisabledOutputStream
 import org.slf4j.LoggerFactory
 import java.io.Closeable
 import java.io.File
 import java.nio.file.Files
-import java.util.*
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.locks.Lock
 
-open class GitRepository(private val gitProperties: GitProperties, val name: String, val url: String, branch: String? = null) {
+open class GitRepository(
+    private val gitProperties: GitProperties,
+    val name: String,
+    val url: String,
+    branch: String? = null,
+    initExecutor: Executor = MoreExecutors.directExecutor(),
+    private val meterRegistry: MeterRegistry = Metrics.globalRegistry,
+) {
     companion object {
         private val logger = LoggerFactory.getLogger(GitRepository::class.java)
+        private const val READ = "read"
+        private const val WRITE = "write"
     }
 
     val rawFilesUrl = Regex("github.com/([^/]+)/([^/.]+)(?:.git)?")
         .replaceFirst(url, "raw.githubusercontent.com/$1/$2/${branch ?: "master"}")
-    private val repo = Files.createTempDirectory(name).toFile()
-    private val git: Git
-    private val lock = CycleDetectingLockFactory.newInstance(CycleDetectingLockFactory.Policies.WARN).newReentrantReadWriteLock(name)
+    /** working copies under [GitProperties.repositoriesRoot] survive restarts and are brought up to date on boot, keeping unpushed commits */
+    private val persistent = gitProperties.repositoriesRoot != null
+    private val repo = gitProperties.repositoriesRoot?.let { File(it, name) } ?: Files.createTempDirectory(name).toFile()
+    private lateinit var git: Git
+    /** lock order violations are counted, so they show up in metrics and not only in the logs */
+    private val lockFactory = CycleDetectingLockFactory.newInstance { e ->
+        meterRegistry.counter("git.lock.potential.deadlocks", "repository", name).increment()
+        CycleDetectingLockFactory.Policies.WARN.handlePotentialDeadlock(e)
+    }
+    private val lock = lockFactory.newReentrantReadWriteLock(name)
     private val writeLock = lock.writeLock()
     private val readLock = lock.readLock()
+    /** per-directory locks, taken while holding [readLock] so that they exclude whole-repository writes */
+    private val stripes = Striped.readWriteLock(32)
+    /** serializes index operations of striped writers, from the first staged change up to the commit */
+    private val commitLock = lockFactory.newReentrantLock("$name-commit")
+    /** serializes fetches, the background refresh fetches without [writeLock] and must not race a writer fetching inline */
+    private val fetchLock = lockFactory.newReentrantLock("$name-fetch")
+
+    /** threads currently blocked on repository locks, by lock type */
+    private val lockWaiters = listOf(READ, WRITE).associateWith { type ->
+        meterRegistry.gauge("git.lock.waiting", Tags.of("repository", name, "lock", type), AtomicInteger())!!
+    }
+    private val lockWaitTimers = listOf(READ, WRITE).associateWith { type ->
+        Timer.builder("git.lock.wait").tags("repository", name, "lock", type).publishPercentileHistogram().register(meterRegistry)
+    }
+
+    private val pushQueue = PushQueue(name, meterRegistry = meterRegistry, catchUp = ::pullAfterRejectedPush) {
+        val results = timed("push") {
+            git.push()
+                .setCredentialsProvider(UsernamePasswordCredentialsProvider(gitProperties.username, gitProperties.accessToken))
+                .setTimeout(120)
+                .call()
+        }
+        val rejected = results
+            .flatMap { it.remoteUpdates }
+            .filter { it.status != RemoteRefUpdate.Status.OK && it.status != RemoteRefUpdate.Status.UP_TO_DATE }
+        if (rejected.isNotEmpty()) {
+            val message = "Push of $name rejected: " + rejected.joinToString { "${it.remoteName} ${it.status} ${it.message.orEmpty()}" }
+            val remoteMoved = rejected.any {
+                it.status == RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD || it.status == RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED
+            }
+            throw if (remoteMoved) RemoteMovedException(message) else IllegalStateException(message)
+        }
+    }
+
+    private val refreshExecutor = Executors.newSingleThreadExecutor(ThreadFactoryBuilder().setNameFormat("$name-refresh").setDaemon(true).build())
+    private val refreshQueued = AtomicBoolean()
 
     @Volatile
-    private var remoteHash: String
+    private lateinit var remoteHash: String
 
-    init {
-        writeLock.lock()
-        git = Git.cloneRepository().setURI(url).setDirectory(repo).setBranch(branch).call()
+    /**
+     * completes when the initial clone is done, repository access waits on it.
+     * Clones of different repositories run concurrently on [initExecutor]
+     */
+    val ready: CompletableFuture<Void> = CompletableFuture.runAsync({
+        git = openExisting(branch)?.also { fastForward(it) } ?: clone(branch)
         remoteHash = git.repository.resolve("HEAD").name()
-        writeLock.unlock()
+        if (!gitProperties.readonlyMode && git.repository.resolve(Constants.HEAD) != git.repository.resolve(git.trackingRef())) {
+            logger.info("pushing commits of $name a previous run left unpushed")
+            pushQueue.request()
+        }
+    }, initExecutor)
+
+    private fun clone(branch: String?): Git {
+        logger.info("cloning $name")
+        repo.deleteRecursively()
+        repo.mkdirs()
+        return timed("clone") { Git.cloneRepository().setURI(url).setDirectory(repo).setBranch(branch).call() }.also {
+            logger.info("cloned $name")
+        }
     }
 
-    private fun ensureUpToDate(): ReadAccess {
-        var read: ReadAccess? = null
-        val hash = try {
-            read = ReadAccess(readLock, repo)
-            read.currentHash()
-        } catch (t: Throwable) {
-            read?.close()
-            throw t
+    /**
+     * @return the working copy left by a previous run, or null if there is none or it can't be trusted
+     */
+    private fun openExisting(branch: String?): Git? {
+        if (!persistent || !File(repo, Constants.DOT_GIT).isDirectory) return null
+        var existing: Git? = null
+        return try {
+            existing = Git.open(repo)
+            val repository = existing.repository
+            check(repository.config.getString("remote", "origin", "url") == url) { "origin does not point to $url" }
+            check(branch == null || repository.branch == branch) { "$branch is not checked out" }
+            checkNotNull(repository.resolve(Constants.HEAD)) { "HEAD does not resolve" }
+            checkNotNull(repository.resolve(existing.trackingRef())) { "${existing.trackingRef()} does not resolve" }
+            // reads the index and walks the working tree, fails on a corrupt repository
+            existing.status().call()
+            existing
+        } catch (e: Exception) {
+            logger.warn("discarding existing working copy of $name", e)
+            existing?.close()
+            null
+        }
+    }
+
+    private fun fastForward(git: Git) {
+        logger.info("updating existing working copy of $name")
+        // drop whatever a previous run left behind mid-operation
+        git.reset().setMode(ResetCommand.ResetType.HARD).call()
+        git.clean().setForce(true).setCleanDirectories(true).call()
+        fetch(git)
+        val remoteBranch = git.repository.resolve(git.trackingRef())
+        val result = git.merge().include(remoteBranch).setFastForward(MergeCommand.FastForwardMode.FF_ONLY).call()
+        if (!result.mergeStatus.isSuccessful) {
+            // commits a previous run accepted but never pushed, keep them on top of what others pushed meanwhile
+            val localHead = git.repository.resolve(Constants.HEAD)
+            val merge = git.merge().include(remoteBranch).setMessage("[BOT] Merge unpushed commits of a previous run").call()
+            if (!merge.mergeStatus.isSuccessful) {
+                val backup = "${Constants.R_REFS}backup/${git.repository.branch}-${System.currentTimeMillis()}"
+                git.reset().setMode(ResetCommand.ResetType.HARD).call()
+                git.repository.updateRef(backup).apply { setNewObjectId(localHead) }.update()
+                meterRegistry.counter("git.divergence.discarded", "repository", name).increment()
+                logger.error("$name diverged from its remote (${merge.mergeStatus}), unpushed commits saved as $backup, resetting to remote state")
+                git.reset().setMode(ResetCommand.ResetType.HARD).setRef(remoteBranch.name).call()
+            }
         }
-        if (hash == remoteHash) {
+        logger.info("updated $name")
+    }
+
+    private fun Git.trackingRef() = "${Constants.R_REMOTES}${Constants.DEFAULT_REMOTE_NAME}/${repository.branch}"
+
+    /** takes [fetchLock] on its own, so callers may hold [writeLock] but no other repository lock */
+    private fun fetch(git: Git) {
+        fetchLock.lock()
+        try {
+            timed("fetch") { git.fetch().setTimeout(120).call() }
+        } finally {
+            fetchLock.unlock()
+        }
+    }
+
+    /**
+     * merges the tracking ref into the working copy. A merge that doesn't succeed is rolled back,
+     * so the working copy is never left with conflict markers for the next writer to commit.
+     * Requires the write lock
+     * @throws IllegalStateException if the merge didn't succeed
+     */
+    private fun mergeRemote() {
+        val head = git.repository.resolve(Constants.HEAD)
+        val result = git.merge().include(git.repository.resolve(git.trackingRef())).call()
+        if (!result.mergeStatus.isSuccessful) {
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(head.name).call()
+            logger.error("Failed to merge remote state into $name (${result.mergeStatus}), conflicts in ${result.conflicts?.keys.orEmpty()}")
+            throw IllegalStateException("Failed to merge remote state into $name: ${result.mergeStatus}")
+        }
+    }
+
+    private fun awaitReady() {
+        try {
+            ready.join()
+        } catch (e: CompletionException) {
+            throw IllegalStateException("Failed to clone $name", e.cause)
+        }
+    }
+
+    /**
+     * @return true if the working copy already contains the commit, which is the case after a fast-forward or our own push
+     */
+    private fun isIncorporated(hash: String): Boolean {
+        if (!ObjectId.isId(hash)) return false
+        val commit = ObjectId.fromString(hash)
+        val head = git.repository.resolve(Constants.HEAD)
+        if (commit == head) return true
+        if (!git.repository.objectDatabase.has(commit)) return false
+        return RevWalk(git.repository).use { walk -> walk.isMergedInto(walk.parseCommit(commit), walk.parseCommit(head)) }
+    }
+
+    /**
+     * merges the remote state into the working copy, only touches the network if a background refresh didn't fetch it yet.
+     * Requires the write lock
+     */
+    private fun catchUp() {
+        val hash = remoteHash
+        if (isIncorporated(hash)) {
             logger.debug("$name is up to date, not pulling")
-            return read
+            return
+        }
+        timed("pull") {
+            if (!ObjectId.isId(hash) || !git.repository.objectDatabase.has(ObjectId.fromString(hash))) {
+                fetch(git)
+            }
+            mergeRemote()
         }
-        read.close()
-        var write: ReadWriteAccess? = null
+        logger.debug("pulled $name")
+    }
+
+    /** a rejected push means the remote moved without a webhook telling us, so this fetches regardless of [remoteHash] */
+    private fun pullAfterRejectedPush() {
+        lock(listOf(writeLock), WRITE)
+        try {
+            fetch(git)
+            remoteHash = git.repository.resolve(git.trackingRef()).name()
+            catchUp()
+        } finally {
+            writeLock.unlock()
+        }
+    }
+
+    private fun refresh() {
+        try {
+            awaitReady()
+            if (isIncorporated(remoteHash)) return
+            // network I/O happens without the write lock, readers keep seeing the previous state meanwhile
+            fetch(git)
+            lock(listOf(writeLock), WRITE)
+            try {
+                catchUp()
+            } finally {
+                writeLock.unlock()
+            }
+        } catch (e: Exception) {
+            logger.warn("Failed to refresh $name", e)
+        }
+    }
+
+    /**
+     * needs to be closed to release repository access.
+     * Reads never wait for the network, they see the last local state
+     */
+    fun acquireReadAccess(): ReadAccess {
+        awaitReady()
+        return ReadAccess(listOf(readLock), READ, repo)
+    }
+
+    /**
+     * needs to be closed to release repository access.
+     * Writes are based on the latest known remote state, so they fetch inline if a background refresh is still outstanding
+     */
+    fun acquireWriteAccess(): ReadWriteAccess {
+        awaitReady()
+        val access = ReadWriteAccess(listOf(writeLock), WRITE, repo, false)
         try {
-            write = ReadWriteAccess(writeLock, repo)
-            git.pull().setTimeout(120).call()
+            catchUp()
         } catch (t: Throwable) {
-            write?.close()
+            access.close()
             throw t
         }
-        logger.debug("pulled $name")
-        return write
+        return access
     }
 
     /**
-     * needs to be closed to release repository access
+     * needs to be closed to release repository access.
+     * Writers of different stripes (usually puzzle directories) run in parallel, only their index operations and commits are serialized.
+     * Striped writers must not touch files outside their stripe
      */
-    fun acquireReadAccess() = ensureUpToDate()
+    fun acquireWriteAccess(stripe: String): ReadWriteAccess {
+        if (!gitProperties.stripedLocking) return acquireWriteAccess()
+        awaitReady()
+        if (!isIncorporated(remoteHash)) {
+            lock(listOf(writeLock), WRITE)
+            try {
+                catchUp()
+            } finally {
+                writeLock.unlock()
+            }
+        }
+        return ReadWriteAccess(listOf(readLock, stripes.get(stripe).writeLock()), WRITE, repo, true)
+    }
+
+    /** next to a persistent working copy and kept across restarts just like it, null if working copies are temporary */
+    fun persistentFile(suffix: String): File? = if (persistent) File(repo.parentFile, "$name.$suffix") else null
+
+    /** lock-free, the last commit of the working copy (in-progress writes are not visible) */
+    fun currentHash(): String {
+        awaitReady()
+        return git.repository.resolve(Constants.HEAD).name()
+    }
 
     /**
-     * needs to be closed to release repository access
+     * needs to be closed to release the object reader.
+     * Pins the current HEAD commit and reads from its immutable tree without taking any lock,
+     * so it neither waits for nor blocks writers and only ever sees committed state
      */
-    fun acquireWriteAccess() = ensureUpToDate().let {
-        if (it is ReadWriteAccess) {
-            it
-        } else {
-            it.close()
-            ReadWriteAccess(writeLock, repo)
-        }
+    fun acquireSnapshot(): Snapshot {
+        awaitReady()
+        return Snapshot(git.repository.resolve(Constants.HEAD))
     }
 
+    /**
+     * Records a new remote head and fetches it in the background.
+     * Requests made while the previous refresh is still queued are collapsed into it
+     */
     fun updateRemoteHash(remoteHash: String) {
         this.remoteHash = remoteHash
+        if (refreshQueued.compareAndSet(false, true)) {
+            refreshExecutor.execute {
+                refreshQueued.set(false)
+                refresh()
+            }
+        }
     }
 
-    open inner class ReadAccess(private val lock: Lock, val repo: File) : Closeable {
+    /** takes [locks] in order, recording the time spent waiting for them as [type] */
+    private fun lock(locks: List<Lock>, type: String) {
+        val waiters = lockWaiters.getValue(type)
+        waiters.incrementAndGet()
+        val start = System.nanoTime()
+        try {
+            locks.forEachIndexed { index, lock ->
+                try {
+                    lock.lock()
+                } catch (t: Throwable) {
+                    locks.subList(0, index).asReversed().forEach(Lock::unlock)
+                    throw t
+                }
+            }
+        } finally {
+            waiters.decrementAndGet()
+            lockWaitTimers.getValue(type).record(System.nanoTime() - start, TimeUnit.NANOSECONDS)
+        }
+    }
+
+    private inline fun <T> timed(operation: String, block: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            meterRegistry.timer("git.operations", "repository", name, "operation", operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS)
+        }
+    }
+
+    open inner class ReadAccess(private val locks: List<Lock>, lockType: String, val repo: File) : Closeable {
         init {
-            lock.lock()
+            lock(locks, lockType)
         }
 
-        fun status(): Status = git.status().call()
+        open fun status(): Status = timed("status") { git.status().call() }
+
+        /** only walks [file], so the cost doesn't grow with the rest of the repository */
+        open fun status(file: File): Status = timed("status") { git.status().addPath(file.relativeTo(repo).path).call() }
 
         fun currentHash(): String = git.repository.resolve("HEAD").name()
 
         fun shortCurrentHash(): String = git.repository.resolve("HEAD").abbreviate(8).name()
 
         override fun close() {
-            lock.unlock()
+            locks.asReversed().forEach(Lock::unlock)
         }
 
-        fun changesSince(instant: Instant): List<Change> {
+        /**
+         * paths that differ between [hash] and HEAD, only descends into trees that changed
+         * @return null if [hash] is not in the repository anymore
+         */
+        fun changedPathsSince(hash: String): Set<String>? {
             return RevWalk(git.repository).use { walk ->
-                val latestCommit = walk.parseCommit(git.repository.resolve(Constants.HEAD))
-                walk.markStart(latestCommit)
-                walk.sort(RevSort.COMMIT_TIME_DESC)
-                walk.revFilter = CommitTimeRevFilter.after(Date.from(instant.toJavaInstant()))
-                val firstCommit = walk.lastOrNull() ?: return@use emptyList()
-                val beforeCommit: RevCommit? = git.repository.resolve(firstCommit.name + "^")?.let { walk.parseCommit(it) }
-                DiffFormatter(null).use { diffFormatter ->
+                val oldCommit = try {
+                    walk.parseCommit(ObjectId.fromString(hash))
+                } catch (e: MissingObjectException) {
+                    return@use null
+                }
+                val newCommit = walk.parseCommit(git.repository.resolve(Constants.HEAD))
+                DiffFormatter(DisabledOutputStream.INSTANCE).use { diffFormatter ->
                     diffFormatter.setReader(walk.objectReader, Config())
-                    diffFormatter.scan(beforeCommit?.tree, latestCommit.tree).map { diff ->
-                        Change(
-                            diff.changeType,
-                            diff.oldPath,
-                            diff.oldPath?.let { oldPath ->
-                                beforeCommit?.tree?.let { oldTree ->
-                                    TreeWalk.forPath(walk.objectReader, oldPath, oldTree)?.let {
-                                        it.objectReader.open(it.getObjectId(0))
-                                    }
-                                }
-                            },
-                            diff.newPath,
-                            diff.newPath?.let { newPath ->
-                                TreeWalk.forPath(walk.objectReader, newPath, latestCommit.tree)?.let {
-                                    it.objectReader.open(it.getObjectId(0))
-                                }
-                            },
-                        )
+                    diffFormatter.scan(oldCommit.tree, newCommit.tree)
+                        .flatMapTo(mutableSetOf()) { listOf(it.oldPath, it.newPath) }
+                        .apply { remove(DiffEntry.DEV_NULL) }
+                }
+            }
+        }
+    }
+
+    inner class Snapshot(val commitId: ObjectId) : Closeable {
+        internal val reader: ObjectReader = git.repository.newObjectReader()
+        private val tree = RevWalk(reader).use { it.parseCommit(commitId).tree }
+
+        /** working copy location, files there may be newer than this snapshot */
+        val repo: File
+            get() = this@GitRepository.repo
+
+        fun currentHash(): String = commitId.name
+
+        /** another snapshot of the same commit, snapshots must not be shared between threads */
+        fun fork(): Snapshot = Snapshot(commitId)
+
+        /** @param path relative to the repository root */
+        fun blobId(path: Path): ObjectId? =
+            TreeWalk.forPath(reader, path.joinToString("/"), tree)?.use { walk -> walk.getObjectId(0).takeIf { walk.fileMode.objectType == Constants.OBJ_BLOB } }
+
+        /** @param path relative to the repository root */
+        fun readBytes(path: Path): ByteArray? = blobId(path)?.let { readBytes(it) }
+
+        fun readBytes(blobId: ObjectId): ByteArray = reader.open(blobId, Constants.OBJ_BLOB).cachedBytes
+
+        /** @param dir relative to the repository root, names of the files directly in it */
+        fun listFiles(dir: Path): List<String> {
+            val dirId = TreeWalk.forPath(reader, dir.joinToString("/"), tree)?.use { walk ->
+                walk.getObjectId(0).takeIf { walk.fileMode.objectType == Constants.OBJ_TREE }
+            } ?: return emptyList()
+            return TreeWalk(reader).use { walk ->
+                walk.addTree(dirId)
+                buildList {
+                    while (walk.next()) {
+                        if (walk.fileMode.objectType == Constants.OBJ_BLOB) add(walk.nameString)
                     }
                 }
             }
         }
 
+        override fun close() {
+            reader.close()
+        }
     }
 
-    inner class ReadWriteAccess(lock: Lock, repo: File) : ReadAccess(lock, repo) {
+    inner class ReadWriteAccess(locks: List<Lock>, lockType: String, repo: File, private val sequenced: Boolean) : ReadAccess(locks, lockType, repo) {
+        private var inSequence = false
+
+        /** other striped writers share the index, so they wait until we committed what we staged */
+        private fun enterSequence() {
+            if (sequenced && !inSequence) {
+                commitLock.lock()
+                inSequence = true
+            }
+        }
+
+        private fun leaveSequence() {
+            if (inSequence) {
+                inSequence = false
+                commitLock.unlock()
+            }
+        }
+
+        override fun status(): Status {
+            enterSequence()
+            return super.status()
+        }
+
+        override fun status(file: File): Status {
+            enterSequence()
+            return super.status(file)
+        }
+
         fun add(file: File) {
-            git.add().addFilepattern(file.relativeTo(repo).path).call()
+            enterSequence()
+            timed("add") { git.add().addFilepattern(file.relativeTo(repo).path).call() }
         }
 
-        /** git add -A $file */
+        /** git add -A $file, staging exactly the paths a single scoped status walk reports */
         fun addAll(file: File) {
-            val relPath = file.relativeTo(repo).path
-            git.add().addFilepattern(relPath).call()
-            git.add().setUpdate(true).addFilepattern(relPath).call()
+            val status = status(file)
+            val added = status.untracked + status.modified
+            if (added.isNotEmpty()) {
+                timed("add") { git.add().apply { added.forEach { addFilepattern(it) } }.call() }
+            }
+            if (status.missing.isNotEmpty()) {
+                git.rm().setCached(true).apply { status.missing.forEach { addFilepattern(it) } }.call()
+            }
         }
 
         fun rm(file: File) {
+            enterSequence()
             git.rm().addFilepattern(file.relativeTo(repo).path).call()
         }
 
-        fun commitAndPush(user: String?, puzzle: Puzzle<*>, score: Score<*>, updated: Collection<String>) {
+        fun commitAndPush(user: String?, puzzle: Puzzle<*>, score: Score<*>, updated: Collection<String>): CompletableFuture<Void> {
             commit(user, puzzle, score, updated)
-            push()
+            return push()
         }
 
-        fun commitAndPush(message: String) {
+        fun commitAndPush(message: String): CompletableFuture<Void> {
             commit(message)
-            push()
+            return push()
         }
 
         fun commit(user: String?, puzzle: Puzzle<*>, score: Score<*>, updated: Collection<String>) =
             commit("${puzzle.displayName} ${score.toDisplayString()} $updated by ${user ?: "unknown"}")
 
-        fun commit(message: String): RevCommit =
-            git.commit()
-                .setAuthor("zachtronics-leaderboard-bot", "zachtronics-leaderboard-bot@faendir.com")
-                .setCommitter("zachtronics-leaderboard-bot", "zachtronics-leaderboard-bot@faendir.com")
-                .setMessage("[BOT] $message")
-                .call()
-
-        fun push() {
-            if (!gitProperties.readonlyMode) {
-                git.push().setCredentialsProvider(UsernamePasswordCredentialsProvider(gitProperties.username, gitProperties.accessToken))
-                    .setTimeout(120).call()
+        fun commit(message: String): RevCommit {
+            enterSequence()
+            try {
+                return timed("commit") {
+                    git.commit()
+                        .setAuthor("zachtronics-leaderboard-bot", "zachtronics-leaderboard-bot@faendir.com")
+                        .setCommitter("zachtronics-leaderboard-bot", "zachtronics-leaderboard-bot@faendir.com")
+                        .setMessage("[BOT] $message")
+                        .call()
+                }
+            } finally {
+                leaveSequence()
             }
         }
 
+        /**
+         * Queues a push of all local commits, the network I/O happens in the background without holding any repository lock.
+         * @return completes when the commits are pushed or fails after all retries are exhausted
+         */
+        fun push(): CompletableFuture<Void> =
+            if (gitProperties.readonlyMode) CompletableFuture.completedFuture(null) else pushQueue.request()
+
+        /** restores [file] to its committed state, leaving the rest of the working tree alone */
         fun resetAndClean(file: File) {
-            git.reset().setMode(ResetCommand.ResetType.HARD).call()
-            git.clean().setForce(true).setPaths(setOf(file.relativeTo(repo).path)).call()
+            enterSequence()
+            try {
+                val relPath = file.relativeTo(repo).path
+                git.reset().addPath(relPath).call()
+                git.checkout().addPath(relPath).call()
+                git.clean().setForce(true).setPaths(setOf(relPath)).call()
+            } finally {
+                leaveSequence()
+            }
+        }
+
+        override fun close() {
+            leaveSequence()
+            super.close()
         }
     }
 
     @PreDestroy
     open fun cleanup() {
-        git.close()
-        repo.deleteRecursively()
+        refreshExecutor.shutdownNow()
+        pushQueue.shutdown()
+        if (ready.isDone && !ready.isCompletedExceptionally) {
+            git.close()
+        }
+        if (!persistent) {
+            repo.deleteRecursively()
+        }
     }
-}
-
-data class Change(val type: DiffEntry.ChangeType, val oldName: String?, val oldContent: ObjectLoader?, val newName: String?, val newContent: ObjectLoader?)
\ No newline at end of file
+}
\ No newline at end of file
@@ -52,7 +52,7 @@ class GithubWebhookController(private val repositories: List<GitRepository>, pri
             if (payload.ref == "refs/heads/master") {
                 val repository = repositories.find { it.url.equals(payload.repository.clone_url, ignoreCase = true) }
                 if (repository != null) {
-                    logger.debug("invalidating ${repository.name}")
+                    logger.debug("scheduling refresh of ${repository.name}")
                     repository.updateRemoteHash(payload.headCommit.id)
                 } else {
                     logger.warn("received webhook for unknown repository ${payload.repository.clone_url}")
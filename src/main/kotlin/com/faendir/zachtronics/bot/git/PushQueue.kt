@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.git
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Metrics
+import org.slf4j.LoggerFactory
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/** the remote has commits we don't have, pushing again only helps after merging them */
+internal class RemoteMovedException(message: String) : IllegalStateException(message)
+
+/**
+ * Runs pushes of a single repository in the background.
+ * Every push sends all local commits, so requests that pile up while a push is running are collapsed into the next one.
+ * Failed pushes are retried with exponential backoff, merging the remote state first if it moved.
+ * Once all attempts failed the commits are only local, so this is counted in `git.push.failures` and tried again after [retryAfter].
+ */
+internal class PushQueue(
+    private val name: String,
+    private val maxAttempts: Int = 5,
+    private val retryAfter: Duration = Duration.ofMinutes(10),
+    meterRegistry: MeterRegistry = Metrics.globalRegistry,
+    private val catchUp: () -> Unit = {},
+    private val push: () -> Unit,
+) {
+    companion object {
+        private val logger = LoggerFactory.getLogger(PushQueue::class.java)
+    }
+
+    private val executor = ScheduledThreadPoolExecutor(1, ThreadFactoryBuilder().setNameFormat("$name-push").setDaemon(true).build()).apply {
+        // a delayed retry is no reason to hold up shutdown
+        executeExistingDelayedTasksAfterShutdownPolicy = false
+    }
+    private val failures = meterRegistry.counter("git.push.failures", "repository", name)
+    private val pending = mutableListOf<CompletableFuture<Void>>()
+    private var running = false
+
+    /**
+     * @return completes once every commit present at the time of the call has been pushed, fails if the queue is shut down
+     */
+    fun request(): CompletableFuture<Void> {
+        val result = CompletableFuture<Void>()
+        result.whenComplete { _, e -> if (e != null) logger.error("Failed to push $name", e) }
+        synchronized(pending) {
+            pending += result
+            if (!running) {
+                try {
+                    executor.execute(::drain)
+                    running = true
+                } catch (e: RejectedExecutionException) {
+                    pending -= result
+                    result.completeExceptionally(IllegalStateException("Push queue of $name is shut down", e))
+                }
+            }
+        }
+        return result
+    }
+
+    private fun drain() {
+        var idle = false
+        try {
+            while (true) {
+                val batch = synchronized(pending) {
+                    if (pending.isEmpty()) {
+                        running = false
+                        idle = true
+                        return
+                    }
+                    pending.toList()
+                }
+                val error = try {
+                    pushWithRetries()
+                } catch (t: Throwable) {
+                    t
+                }
+                synchronized(pending) { pending.removeAll(batch) }
+                batch.forEach { if (error == null) it.complete(null) else it.completeExceptionally(error) }
+                if (error != null) scheduleRetry()
+            }
+        } finally {
+            // anything unexpected must not leave later requests queued without a drain
+            if (!idle) synchronized(pending) { running = false }
+        }
+    }
+
+    private fun pushWithRetries(): Exception? {
+        var attempt = 1
+        while (true) {
+            try {
+                push()
+                logger.debug("pushed $name")
+                return null
+            } catch (e: Exception) {
+                if (attempt >= maxAttempts) return e
+                val delay = 1L shl (attempt - 1)
+                logger.warn("Push attempt $attempt of $name failed, retrying in ${delay}s", e)
+                TimeUnit.SECONDS.sleep(delay)
+                if (e is RemoteMovedException) {
+                    try {
+                        catchUp()
+                    } catch (ce: Exception) {
+                        logger.warn("Failed to merge the remote state of $name before pushing again", ce)
+                    }
+                }
+                attempt++
+            }
+        }
+    }
+
+    /** the failed commits are still local, so they are pushed again even if nothing else is committed meanwhile */
+    private fun scheduleRetry() {
+        failures.increment()
+        logger.error("Giving up pushing $name for now, local commits are not on the remote, retrying in $retryAfter")
+        try {
+            executor.schedule({ request() }, retryAfter.toMillis(), TimeUnit.MILLISECONDS)
+        } catch (e: RejectedExecutionException) {
+            logger.error("Push queue of $name is shut down, local commits are not on the remote")
+        }
+    }
+
+    /** waits for outstanding pushes, including their retries */
+    fun shutdown() {
+        executor.shutdown()
+        if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            logger.warn("Gave up waiting for pending pushes of $name")
+        }
+    }
+}
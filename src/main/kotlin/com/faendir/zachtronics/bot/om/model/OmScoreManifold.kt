@@ -60,4 +60,45 @@ enum class OmScoreManifold(
     }
 
     fun supportsScore(score: OmScore) = scoreParts.all { it.getValueFrom(score) != null }
+
+    /**
+     * Whether each of [scores] is on the pareto frontier of this manifold, same as checking [frontierCompare] against all others.
+     * A score that dominates another is also lexicographically smaller, so after sorting
+     * every score only needs to be checked against the frontier found so far.
+     */
+    fun frontierOf(scores: List<OmScore>): BooleanArray {
+        // scores with missing parts can't dominate nor be on the frontier
+        val supported = scores.indices.filter { supportsScore(scores[it]) }
+        // values are replaced by their rank in each part, so the sweep compares plain ints
+        val ranks = Array(supported.size) { IntArray(scoreParts.size) }
+        for ((p, part) in scoreParts.withIndex()) {
+            val comparator = Comparator<Int> { a, b -> part.comparator.compare(scores[supported[a]], scores[supported[b]]) }
+            val byPart = supported.indices.sortedWith(comparator)
+            var rank = 0
+            for (j in byPart.indices) {
+                if (j > 0 && comparator.compare(byPart[j - 1], byPart[j]) != 0) rank++
+                ranks[byPart[j]][p] = rank
+            }
+        }
+
+        val onFrontier = BooleanArray(scores.size)
+        val frontier = ArrayList<IntArray>()
+        for (i in supported.indices.sortedWith { a, b -> Arrays.compare(ranks[a], ranks[b]) }) {
+            if (frontier.none { it.dominates(ranks[i]) }) {
+                frontier.add(ranks[i])
+                onFrontier[supported[i]] = true
+            }
+        }
+        return onFrontier
+    }
+}
+
+/** at least as good in every part and better in one */
+private fun IntArray.dominates(other: IntArray): Boolean {
+    var better = false
+    for (p in indices) {
+        if (this[p] > other[p]) return false
+        if (this[p] < other[p]) better = true
+    }
+    return better
 }
\ No newline at end of file
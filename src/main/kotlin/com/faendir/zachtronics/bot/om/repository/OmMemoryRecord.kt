@@ -20,13 +20,13 @@ import com.faendir.zachtronics.bot.om.model.OmCategory
 import com.faendir.zachtronics.bot.om.model.OmRecord
 import com.faendir.zachtronics.bot.om.model.OmScoreManifold
 import com.faendir.zachtronics.bot.repository.CategoryRecord
-import com.faendir.zachtronics.bot.utils.newEnumSet
 import java.nio.file.Path
 
+/** never changed once built, a submission replaces the records it touches with copies */
 internal data class OmMemoryRecord(
     val record: OmRecord,
-    val frontierManifolds: MutableSet<OmScoreManifold> = newEnumSet<OmScoreManifold>(),
-    val categories: MutableSet<OmCategory> = newEnumSet<OmCategory>()
+    val frontierManifolds: Set<OmScoreManifold> = emptySet(),
+    val categories: Set<OmCategory> = emptySet()
 ) {
     fun toCategoryRecord() = CategoryRecord(record, categories)
 }
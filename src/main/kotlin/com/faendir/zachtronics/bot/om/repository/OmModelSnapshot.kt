@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.om.repository
+
+import com.faendir.zachtronics.bot.om.model.OmCategory
+import com.faendir.zachtronics.bot.om.model.OmPuzzle
+import com.faendir.zachtronics.bot.om.model.OmRecord
+import com.faendir.zachtronics.bot.om.model.OmScoreManifold
+import kotlinx.serialization.Serializable
+
+/**
+ * The in-memory model as of a leaderboard commit, so a restart doesn't have to parse every record again.
+ * @param build of the bot that computed it, manifolds and categories may be assigned differently by another one
+ * @param hash leaderboard commit the model was built from
+ */
+@Serializable
+internal class OmModelSnapshot(val build: String, val hash: String, val puzzles: Map<OmPuzzle, List<Entry>>) {
+    /** @param record with its data path relative to the repository root */
+    @Serializable
+    class Entry(val record: OmRecord, val frontierManifolds: Set<OmScoreManifold>, val categories: Set<OmCategory>)
+}
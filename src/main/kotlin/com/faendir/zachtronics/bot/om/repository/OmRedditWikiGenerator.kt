@@ -26,14 +26,14 @@ import com.faendir.zachtronics.bot.om.model.OmPuzzle
 import com.faendir.zachtronics.bot.om.model.OmRecord
 import com.faendir.zachtronics.bot.om.model.OmType
 import com.faendir.zachtronics.bot.om.model.OmType.PRODUCTION
-import com.faendir.zachtronics.bot.reddit.RedditService
+import com.faendir.zachtronics.bot.reddit.RedditWikiSync
 import com.faendir.zachtronics.bot.reddit.Subreddit.OPUS_MAGNUM
 import com.faendir.zachtronics.bot.utils.Markdown
 import org.springframework.stereotype.Component
 import java.io.File
 
 @Component
-class OmRedditWikiGenerator(private val reddit: RedditService) {
+class OmRedditWikiGenerator(private val wikiSync: RedditWikiSync) {
     companion object {
         private const val wikiPage = "index"
     }
@@ -57,45 +57,52 @@ class OmRedditWikiGenerator(private val reddit: RedditService) {
         return "${Markdown.linkOrText(score, first.displayLink)}${if (second.any { it.name.contains("X") }) "*" else ""}"
     }
 
-    internal fun update(readAccess: GitRepository.ReadAccess, categories: List<OmCategory>, data: Map<OmPuzzle, Set<OmMemoryRecord>>) {
+    /**
+     * Schedules a sync of the page if any of [categories] are shown on it.
+     * The page is rendered later from the then current [data], while holding read access to [leaderboard].
+     */
+    internal fun update(leaderboard: GitRepository, categories: List<OmCategory>, data: () -> Map<OmPuzzle, List<OmMemoryRecord>>) {
         if (categories.any { this.categories.contains(it) }) {
-            val prefix = File(readAccess.repo, "reddit/prefix.md").readText()
-            val suffix = File(readAccess.repo, "reddit/suffix.md").readText()
-            var table = ""
-            for (group in OmGroup.entries) {
-                table += "## ${group.displayName}\n\n"
-                val puzzles = OmPuzzle.entries.filter { it.group == group }
-                val thirdCategory = puzzles.map {
-                    when (it.type) {
-                        OmType.NORMAL, OmType.POLYMER -> "Area"
-                        PRODUCTION -> "Instructions"
-                    }
-                }.distinct().joinToString("/")
-                table += "Name|Cost|Cycles|${thirdCategory}|Sum\n:-|:-|:-|:-|:-\n"
-                for (puzzle in puzzles) {
-                    table += "[**${puzzle.displayName}**](${puzzle.link})"
+            wikiSync.markDirty(OPUS_MAGNUM, wikiPage, "bot update") {
+                leaderboard.acquireReadAccess().use { readAccess -> render(readAccess, data()) }
+            }
+        }
+    }
 
-                    val entry = data[puzzle] ?: emptySet()
-                    val costScores = filterRecords(entry, costCategories)
-                    val cycleScores = filterRecords(entry, cycleCategories)
-                    val areaInstructionScores = filterRecords(entry, areaInstructionCategories)
-                    val sumScores = filterRecords(entry, sumCategories)
-                    while (costScores.isNotEmpty() || cycleScores.isNotEmpty() || areaInstructionScores.isNotEmpty() || sumScores.isNotEmpty()) {
-                        table += "|${costScores.removeFirstOrNull().toMarkdown()}|${
-                            cycleScores.removeFirstOrNull().toMarkdown()
-                        }|${areaInstructionScores.removeFirstOrNull().toMarkdown()}|${
-                            sumScores.removeFirstOrNull().toMarkdown()
-                        }|\n|"
-                    }
-                    table += "\n"
+    private fun render(readAccess: GitRepository.ReadAccess, data: Map<OmPuzzle, List<OmMemoryRecord>>): String {
+        val prefix = File(readAccess.repo, "reddit/prefix.md").readText()
+        val suffix = File(readAccess.repo, "reddit/suffix.md").readText()
+        var table = ""
+        for (group in OmGroup.entries) {
+            table += "## ${group.displayName}\n\n"
+            val puzzles = OmPuzzle.entries.filter { it.group == group }
+            val thirdCategory = puzzles.map {
+                when (it.type) {
+                    OmType.NORMAL, OmType.POLYMER -> "Area"
+                    PRODUCTION -> "Instructions"
+                }
+            }.distinct().joinToString("/")
+            table += "Name|Cost|Cycles|${thirdCategory}|Sum\n:-|:-|:-|:-|:-\n"
+            for (puzzle in puzzles) {
+                table += "[**${puzzle.displayName}**](${puzzle.link})"
+
+                val entry = data[puzzle] ?: emptyList()
+                val costScores = filterRecords(entry, costCategories)
+                val cycleScores = filterRecords(entry, cycleCategories)
+                val areaInstructionScores = filterRecords(entry, areaInstructionCategories)
+                val sumScores = filterRecords(entry, sumCategories)
+                while (costScores.isNotEmpty() || cycleScores.isNotEmpty() || areaInstructionScores.isNotEmpty() || sumScores.isNotEmpty()) {
+                    table += "|${costScores.removeFirstOrNull().toMarkdown()}|${
+                        cycleScores.removeFirstOrNull().toMarkdown()
+                    }|${areaInstructionScores.removeFirstOrNull().toMarkdown()}|${
+                        sumScores.removeFirstOrNull().toMarkdown()
+                    }|\n|"
                 }
                 table += "\n"
             }
-            val content = "$prefix\n$table\n$suffix".trim()
-            if (content.lines() != reddit.getWikiPage(OPUS_MAGNUM, wikiPage).lines()) {
-                reddit.updateWikiPage(OPUS_MAGNUM, wikiPage, content, "bot update")
-            }
+            table += "\n"
         }
+        return "$prefix\n$table\n$suffix".trim()
     }
 
 }
\ No newline at end of file
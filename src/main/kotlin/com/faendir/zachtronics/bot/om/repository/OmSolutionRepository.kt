@@ -16,6 +16,7 @@
 
 package com.faendir.zachtronics.bot.om.repository
 
+import com.faendir.zachtronics.bot.git.ChangeLog
 import com.faendir.zachtronics.bot.git.GitRepository
 import com.faendir.zachtronics.bot.model.DisplayContext
 import com.faendir.zachtronics.bot.om.model.*
@@ -25,17 +26,27 @@ import com.faendir.zachtronics.bot.repository.SolutionRepository
 import com.faendir.zachtronics.bot.repository.SubmitResult
 import com.faendir.zachtronics.bot.utils.newEnumSet
 import jakarta.annotation.PostConstruct
+import jakarta.annotation.PreDestroy
 import kotlinx.datetime.Clock
 import kotlinx.datetime.Instant
 import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.cbor.Cbor
+import kotlinx.serialization.decodeFromByteArray
+import kotlinx.serialization.encodeToByteArray
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.decodeFromStream
 import kotlinx.serialization.json.encodeToStream
 import org.eclipse.jgit.diff.DiffEntry
+import org.slf4j.LoggerFactory
 import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.boot.info.GitProperties
 import org.springframework.stereotype.Component
 import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
 import java.util.*
+import java.util.concurrent.atomic.AtomicReference
 
 @OptIn(ExperimentalSerializationApi::class)
 @Component
@@ -43,8 +54,10 @@ class OmSolutionRepository(
     @Qualifier("omLeaderboardRepository") private val leaderboard: GitRepository,
     private val pageGenerator: OmRedditWikiGenerator,
     private val omUrlMapper: OmUrlMapper,
+    buildInfo: GitProperties? = null,
 ) : SolutionRepository<OmCategory, OmPuzzle, OmSubmission, OmRecord> {
     companion object {
+        private val logger = LoggerFactory.getLogger(OmSolutionRepository::class.java)
         private val json = Json {
             prettyPrint = true
             allowSpecialFloatingPointValues = true
@@ -56,65 +69,171 @@ class OmSolutionRepository(
         private val memoryRecordOrder = Comparator.comparing({ r: OmMemoryRecord -> r.record.score }, dataOrder)!!
     }
 
-    private lateinit var data: Map<OmPuzzle, SortedSet<OmMemoryRecord>>
-    internal val immutableData: Map<OmPuzzle, Set<OmMemoryRecord>>
-        get() = data
-    private var hash: String? = null
-
+    /**
+     * Everything known about the leaderboard at commit [hash], never changed once published.
+     * @param data records of every puzzle in [memoryRecordOrder]
+     */
+    private class OmModel(val hash: String?, val data: Map<OmPuzzle, List<OmMemoryRecord>>)
+
+    /** writers build a new model and swap it in, readers take whatever is current without locking */
+    private val model = AtomicReference(OmModel(null, emptyMap()))
+    internal val immutableData: Map<OmPuzzle, List<OmMemoryRecord>>
+        get() = model.get().data
+    /** commits of a write in progress are published with its model, readers don't wait for them */
+    @Volatile
+    private var writing = false
+    private val changeLog = ChangeLog(leaderboard) { it.endsWith(".json") }
+    private val puzzlesByDir = OmPuzzle.entries.associateBy { "${it.group.name}/${it.name}" }
+
+    /** local builds with uncommitted changes can't tell apart their snapshots */
+    private val snapshotBuild = buildInfo?.takeIf { it.get("dirty") != "true" }?.commitId
+    private val snapshotFile = snapshotBuild?.let { leaderboard.persistentFile("om-model") }
+    /** commit the snapshot on disk was built from */
+    private var snapshotHash: String? = null
+
+    /** startup doesn't wait for the clone, the model is built once it is done. Requests before that build it themselves */
     @PostConstruct
     fun init() {
+        leaderboard.ready
+            .thenRunAsync(::warmUp)
+            .exceptionally { e ->
+                logger.warn("Failed to build the model of ${leaderboard.name}, building it on first lookup", e)
+                null
+            }
+    }
+
+    private fun warmUp() {
         leaderboard.acquireReadAccess().use { leaderboardScope ->
-            loadData(leaderboardScope)
-            pageGenerator.update(leaderboardScope, OmCategory.entries, immutableData)
+            // the snapshot is brought up to date like any other stale model
+            readSnapshot(leaderboardScope)
+            loadDataIfNecessary(leaderboardScope)
+            writeSnapshot(leaderboardScope)
+            pageGenerator.update(leaderboard, OmCategory.entries) { immutableData }
         }
     }
 
-    private fun loadData(leaderboardScope: GitRepository.ReadAccess) {
-        data = OmPuzzle.entries.associateWith { sortedSetOf(memoryRecordOrder) }
-        for ((puzzle, memoryRecords) in data.entries) {
-            // fill map
-            leaderboardScope.getPuzzleDir(puzzle).takeIf { it.exists() }
-                ?.listFiles { file -> file.extension == "json" }
-                ?.map { file ->
-                    file.inputStream().buffered().use { json.decodeFromStream<OmRecord>(it) }
-                }
-                ?.map { it.toMemoryRecord(leaderboardScope.repo.toPath()) }
-                ?.forEach(memoryRecords::add)
-
-            // fill valid manifolds
-            val possibleManifolds = OmScoreManifold.entries.filter { it.supportedTypes.contains(puzzle.type) }
-            for (mRecord in memoryRecords) {
-                manifolds@ for (manifold in possibleManifolds.filter { it.supportsScore(mRecord.record.score) }) {
-                    for (otherMRecord in memoryRecords) {
-                        val compares = manifold.frontierCompare(mRecord.record.score, otherMRecord.record.score)
-                        if (compares.all { it >= 0 } && compares.any { it > 0 })
-                            continue@manifolds
-                    }
-                    mRecord.frontierManifolds.add(manifold)
-                }
+    @PreDestroy
+    fun saveSnapshot() {
+        leaderboard.acquireReadAccess().use { leaderboardScope -> writeSnapshot(leaderboardScope) }
+    }
+
+    private fun readSnapshot(leaderboardScope: GitRepository.ReadAccess) {
+        val file = snapshotFile?.takeIf { it.exists() } ?: return
+        val initial = model.get()
+        // a request that came first already built a model
+        if (initial.hash != null) return
+        val snapshot = try {
+            Cbor.decodeFromByteArray<OmModelSnapshot>(file.readBytes())
+        } catch (e: Exception) {
+            logger.warn("Ignoring unreadable model snapshot $file", e)
+            return
+        }
+        if (snapshot.build != snapshotBuild) return
+        val repoPath = leaderboardScope.repo.toPath()
+        val data = OmPuzzle.entries.associateWithTo(EnumMap(OmPuzzle::class.java)) { puzzle ->
+            snapshot.puzzles[puzzle].orEmpty().map { entry ->
+                entry.record.toMemoryRecord(repoPath).copy(frontierManifolds = entry.frontierManifolds, categories = entry.categories)
+            }.sortedWith(memoryRecordOrder)
+        }
+        model.compareAndSet(initial, OmModel(snapshot.hash, data))
+        snapshotHash = snapshot.hash
+    }
+
+    private fun writeSnapshot(leaderboardScope: GitRepository.ReadAccess) {
+        val file = snapshotFile ?: return
+        val current = model.get()
+        val currentHash = current.hash ?: return
+        if (currentHash == snapshotHash) return
+        val repoPath = leaderboardScope.repo.toPath()
+        val snapshot = OmModelSnapshot(snapshotBuild!!, currentHash, current.data.mapValues { (_, mRecords) ->
+            mRecords.map { OmModelSnapshot.Entry(it.record.copy(dataPath = repoPath.relativize(it.record.dataPath)), it.frontierManifolds, it.categories) }
+        })
+        try {
+            val tempFile = File(file.parentFile, "${file.name}.tmp")
+            tempFile.writeBytes(Cbor.encodeToByteArray(snapshot))
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            snapshotHash = currentHash
+        } catch (e: IOException) {
+            logger.warn("Failed to write model snapshot $file", e)
+        }
+    }
+
+    /** puzzles don't depend on each other, so they are loaded in parallel on the common fork-join pool */
+    private fun loadPuzzles(leaderboardScope: GitRepository.ReadAccess, puzzles: Collection<OmPuzzle>): Map<OmPuzzle, List<OmMemoryRecord>> =
+        puzzles.parallelStream()
+            .map { it to loadPuzzle(leaderboardScope, it) }
+            .toList()
+            .toMap(EnumMap(OmPuzzle::class.java))
+
+    private fun loadPuzzle(leaderboardScope: GitRepository.ReadAccess, puzzle: OmPuzzle): List<OmMemoryRecord> {
+        val records = sortedSetOf(Comparator.comparing({ r: OmRecord -> r.score }, dataOrder))
+        // fill map
+        leaderboardScope.getPuzzleDir(puzzle).takeIf { it.exists() }
+            ?.listFiles { file -> file.extension == "json" }
+            ?.map { file ->
+                file.inputStream().buffered().use { json.decodeFromStream<OmRecord>(it) }
             }
+            ?.map { it.copy(dataPath = leaderboardScope.repo.toPath().resolve(it.dataPath)) }
+            ?.forEach(records::add)
+        val scores = records.map { it.score }
+
+        // fill valid manifolds
+        val frontierManifolds = List(scores.size) { newEnumSet<OmScoreManifold>() }
+        for (manifold in OmScoreManifold.entries.filter { it.supportedTypes.contains(puzzle.type) }) {
+            val onFrontier = manifold.frontierOf(scores)
+            frontierManifolds.forEachIndexed { i, manifolds -> if (onFrontier[i]) manifolds.add(manifold) }
+        }
 
-            // fill cats
-            if (memoryRecords.isNotEmpty()) {
-                for (category in OmCategory.entries.filter { it.supportsPuzzle(puzzle) }) {
-                    memoryRecords
-                        .filter { category.supportsScore(it.record.score) }
-                        .minWithOrNull(Comparator.comparing({ it.record.score }, category.scoreComparator))
-                        ?.categories
-                        ?.add(category)
-                }
+        // fill cats
+        val categories = List(scores.size) { newEnumSet<OmCategory>() }
+        if (scores.isNotEmpty()) {
+            for (category in OmCategory.entries.filter { it.supportsPuzzle(puzzle) }) {
+                scores.indices
+                    .filter { category.supportsScore(scores[it]) }
+                    .minWithOrNull(Comparator.comparing({ scores[it] }, category.scoreComparator))
+                    ?.let { categories[it].add(category) }
             }
         }
+        return records.mapIndexed { i, record -> OmMemoryRecord(record, frontierManifolds[i], categories[i]) }
     }
 
-    private fun loadDataIfNecessary(leaderboardScope: GitRepository.ReadAccess) {
+    /**
+     * Rebuilds only the puzzles whose directories changed since the model was built, everything if that is unknown.
+     * @return the model of the current commit
+     */
+    private fun loadDataIfNecessary(leaderboardScope: GitRepository.ReadAccess): OmModel {
+        val current = model.get()
         val currentHash = leaderboardScope.currentHash()
-        if (hash != currentHash) {
-            loadData(leaderboardScope)
-            hash = currentHash
+        if (current.hash == currentHash) return current
+        val changedPaths = current.hash?.let { leaderboardScope.changedPathsSince(it) }
+        val data = if (changedPaths == null) {
+            loadPuzzles(leaderboardScope, OmPuzzle.entries)
+        } else {
+            val changedPuzzles = changedPaths.mapNotNullTo(newEnumSet()) { puzzlesByDir[it.substringBeforeLast('/')] }
+            if (changedPuzzles.isNotEmpty()) current.data + loadPuzzles(leaderboardScope, changedPuzzles) else current.data
         }
+        // readers without the lock keep using the old model until the new one is complete
+        return OmModel(currentHash, data).also { model.set(it) }
     }
 
+    /** only takes the read lock if the leaderboard moved since the model was built by anyone but a writer */
+    private fun loadDataIfNecessary(): OmModel {
+        val current = model.get()
+        if (writing || current.hash == leaderboard.currentHash()) return current
+        return leaderboard.acquireReadAccess().use { l -> loadDataIfNecessary(l) }
+    }
+
+    /** readers keep using the published model while [block] runs */
+    private inline fun <T> write(block: (GitRepository.ReadWriteAccess) -> T): T =
+        leaderboard.acquireWriteAccess().use { leaderboardScope ->
+            writing = true
+            try {
+                block(leaderboardScope)
+            } finally {
+                writing = false
+            }
+        }
+
     override fun submit(submission: OmSubmission): SubmitResult<OmRecord, OmCategory> {
         if (submission.displayLink == null) {
             throw IllegalArgumentException("Missing gif link.")
@@ -122,39 +241,52 @@ class OmSolutionRepository(
         if (submission.displayLink!!.endsWith(".solution")) {
             throw IllegalArgumentException("You cannot use solution files as gifs.")
         }
-        return leaderboard.acquireWriteAccess().use { leaderboardScope ->
-            val records by lazy { data.getValue(submission.puzzle) }
-            val newMRecord by lazy { submission.createMRecord(leaderboardScope) }
-            val result = submit(leaderboardScope, submission) { beatenMRecord, beatenCategories, lostManifolds ->
+        return write { leaderboardScope ->
+            val current = loadDataIfNecessary(leaderboardScope)
+            // only collected here, the published records stay untouched until the whole submission went through
+            val lostManifolds = mutableMapOf<OmMemoryRecord, MutableSet<OmScoreManifold>>()
+            val lostCategories = mutableMapOf<OmMemoryRecord, MutableSet<OmCategory>>()
+            val wonManifolds = newEnumSet<OmScoreManifold>()
+            val wonCategories = newEnumSet<OmCategory>()
+            val result = submit(current, submission) { beatenMRecord, beatenCategories, beatenManifolds ->
                 if (beatenMRecord != null) {
-                    beatenMRecord.frontierManifolds -= lostManifolds
-                    if (beatenMRecord.frontierManifolds.isNotEmpty()) {
-                        beatenMRecord.categories -= beatenCategories
-                    } else {
-                        beatenMRecord.remove(leaderboardScope)
-                    }
+                    lostManifolds.getOrPut(beatenMRecord) { newEnumSet() } += beatenManifolds
+                    lostCategories.getOrPut(beatenMRecord) { newEnumSet() } += beatenCategories
                 }
-                newMRecord.frontierManifolds += lostManifolds
-                newMRecord.categories += beatenCategories
-                records.add(newMRecord)
+                wonManifolds += beatenManifolds
+                wonCategories += beatenCategories
             }
             val beatenRecords = when (result) {
                 is SubmitResult.Success -> result.beatenRecords
                 is SubmitResult.Updated -> listOf(result.oldRecord)
                 else -> null
             }
+            var newMRecord: OmMemoryRecord? = null
             if (beatenRecords != null) {
-                pageGenerator.update(leaderboardScope, beatenRecords.flatMap { it.categories }, data)
+                // beaten records go first, an update reuses their file names
+                val records = current.data.getValue(submission.puzzle).mapNotNull { mRecord ->
+                    val lost = lostManifolds[mRecord] ?: return@mapNotNull mRecord
+                    val frontierManifolds = mRecord.frontierManifolds - lost
+                    if (frontierManifolds.isEmpty()) {
+                        mRecord.removeFiles(leaderboardScope)
+                        null
+                    } else {
+                        mRecord.copy(frontierManifolds = frontierManifolds, categories = mRecord.categories - lostCategories.getValue(mRecord))
+                    }
+                }
+                newMRecord = submission.createMRecord(leaderboardScope).copy(frontierManifolds = wonManifolds, categories = wonCategories)
                 val rev = leaderboardScope.commit(
                     submission.author,
                     submission.puzzle,
                     submission.score,
                     beatenRecords.flatMap { it.categories }.map { it.toString() })
-                hash = rev.name()
+                val puzzleRecords = (records + newMRecord).sortedWith(memoryRecordOrder)
+                model.set(OmModel(rev.name(), current.data + (submission.puzzle to puzzleRecords)))
+                pageGenerator.update(leaderboard, beatenRecords.flatMap { it.categories }) { immutableData }
                 leaderboardScope.push()
             }
             fun patchedUpRecord() = // add transient fields from submission
-                newMRecord.record.copy(author = submission.author, displayLinkEmbed = submission.displayLinkEmbed)
+                newMRecord!!.record.copy(author = submission.author, displayLinkEmbed = submission.displayLinkEmbed)
             when (result) {
                 is SubmitResult.Success -> result.copy(record = patchedUpRecord())
                 is SubmitResult.Updated -> result.copy(record = patchedUpRecord())
@@ -163,16 +295,15 @@ class OmSolutionRepository(
         }
     }
 
-    fun submitDryRun(submission: OmSubmission): SubmitResult<OmRecord, OmCategory> {
-        return leaderboard.acquireReadAccess().use { leaderboardScope -> submit(leaderboardScope, submission) { _, _, _ -> } }
+    override fun submitDryRun(submission: OmSubmission): SubmitResult<OmRecord, OmCategory> {
+        return submit(loadDataIfNecessary(), submission) { _, _, _ -> }
     }
 
     private fun submit(
-        leaderboardScope: GitRepository.ReadAccess,
+        current: OmModel,
         submission: OmSubmission,
         handleBeatenRecord: (beatenMRecord: OmMemoryRecord?, beatenCategories: Set<OmCategory>, lostManifolds: Set<OmScoreManifold>) -> Unit
     ): SubmitResult<OmRecord, OmCategory> {
-        loadDataIfNecessary(leaderboardScope)
         val puzzle = submission.puzzle
         val unclaimedCategories = OmCategory.entries.filterTo(newEnumSet()) { it.supportsPuzzle(puzzle) && it.supportsScore(submission.score) }
         val possibleManifolds = OmScoreManifold.entries.filterTo(newEnumSet()) {
@@ -180,16 +311,14 @@ class OmSolutionRepository(
         }
         val beatingWitnesses = mutableMapOf<OmScoreManifold, OmMemoryRecord>()
         val beatenCR = mutableSetOf<CategoryRecord<OmRecord?, OmCategory>>()
-        val mRecords = data.getValue(puzzle)
-        for (mRecord in mRecords.toSet()) {
+        for (mRecord in current.data.getValue(puzzle)) {
             val record = mRecord.record
             val fullCompares = OmMetrics.FULL_SCORE.map { it.comparator.compare(submission.score, record.score) }
 
             if (fullCompares.all { it == 0 }) { // candidate is identical to record
                 @Suppress("LiftReturnOrAssignment")
                 if (submission.displayLink != record.displayLink || record.displayLink == null) {
-                    // copies are needed or they'll edit themselves in the handler
-                    handleBeatenRecord(mRecord, mRecord.categories.toSet(), mRecord.frontierManifolds.toSet())
+                    handleBeatenRecord(mRecord, mRecord.categories, mRecord.frontierManifolds)
                     return SubmitResult.Updated(null, mRecord.toCategoryRecord())
                 } else {
                     return SubmitResult.AlreadyPresent()
@@ -200,8 +329,7 @@ class OmSolutionRepository(
             }
             unclaimedCategories -= mRecord.categories
             if (fullCompares.all { it <= 0 }) { // candidate beats the old record all around, use that and skip the details
-                // copies are needed or they'll edit themselves in the handler
-                handleBeatenRecord(mRecord, mRecord.categories.toSet(), mRecord.frontierManifolds.toSet())
+                handleBeatenRecord(mRecord, mRecord.categories, mRecord.frontierManifolds)
                 beatenCR.add(CategoryRecord(record, mRecord.categories))
                 continue
             }
@@ -259,7 +387,7 @@ class OmSolutionRepository(
     }
 
     fun overrideScores(overrides: List<Pair<OmRecord, OmScore>>) {
-        leaderboard.acquireWriteAccess().use { leaderboardScope ->
+        write { leaderboardScope ->
             for ((record, newScore) in overrides) {
                 val puzzle = record.puzzle
                 val dir = leaderboardScope.getPuzzleDir(puzzle)
@@ -286,47 +414,45 @@ class OmSolutionRepository(
                 leaderboardScope.add(leaderboardFile)
             }
             leaderboardScope.commitAndPush("Score overrides (metadata)")
-            loadData(leaderboardScope)
-            pageGenerator.update(leaderboardScope, OmCategory.entries, immutableData)
+            loadDataIfNecessary(leaderboardScope)
+            pageGenerator.update(leaderboard, OmCategory.entries) { immutableData }
         }
     }
 
     fun delete(record: OmRecord) {
-        leaderboard.acquireWriteAccess().use { leaderboardScope ->
+        write { leaderboardScope ->
             val dir = leaderboardScope.getPuzzleDir(record.puzzle)
             leaderboardScope.rm(record.dataPath.toFile())
             leaderboardScope.rm(File(dir, "${record.toFileStem()}.json"))
             leaderboardScope.commitAndPush(null, record.puzzle, record.score, listOf("DELETE"))
-            loadData(leaderboardScope)
-            pageGenerator.update(leaderboardScope, OmCategory.entries, immutableData)
+            loadDataIfNecessary(leaderboardScope)
+            pageGenerator.update(leaderboard, OmCategory.entries) { immutableData }
         }
     }
 
-    fun computeChangesSince(instant: Instant): List<OmRecordChange> {
-        return leaderboard.acquireReadAccess().use { leaderboardScope ->
-            leaderboardScope.changesSince(instant).mapNotNull { change ->
-
+    /**
+     * Net record changes between [instant] and the current head, a record added and removed again in between is not listed.
+     * @param cursor continues a previous page of the same [instant], it keeps serving the head that page was taken from
+     * @throws IllegalArgumentException if the cursor is not valid for the current history
+     */
+    fun computeChangesSince(instant: Instant, cursor: String? = null, limit: Int = Int.MAX_VALUE): OmRecordChanges {
+        val slice = changeLog.slice(instant, cursor, limit)
+        // only the served page is loaded, the log itself just holds blob ids
+        val changes = leaderboard.acquireSnapshot().use { snapshot ->
+            slice.changes.mapNotNull { change ->
+                val type = when (change.type) {
+                    DiffEntry.ChangeType.ADD -> OmRecordChangeType.ADD
+                    DiffEntry.ChangeType.DELETE -> OmRecordChangeType.REMOVE
+                    else -> return@mapNotNull null
+                }
                 try {
-                    when (change.type) {
-                        DiffEntry.ChangeType.ADD -> if (change.newName!!.endsWith(".json")) {
-                            OmRecordChange(OmRecordChangeType.ADD, change.newContent!!.openStream().use { json.decodeFromStream(it) })
-                        } else {
-                            null
-                        }
-
-                        DiffEntry.ChangeType.DELETE -> if (change.oldName!!.endsWith(".json")) {
-                            OmRecordChange(OmRecordChangeType.REMOVE, change.oldContent!!.openStream().use { json.decodeFromStream(it) })
-                        } else {
-                            null
-                        }
-
-                        else -> null
-                    }
+                    OmRecordChange(type, json.decodeFromStream<OmRecord>(snapshot.readBytes(change.blobId).inputStream()))
                 } catch (e: Exception) {
                     null
                 }
             }
         }
+        return OmRecordChanges(changes, slice.next)
     }
 
 
@@ -358,10 +484,9 @@ class OmSolutionRepository(
     private fun createLink(leaderboardScope: GitRepository.ReadAccess, puzzle: OmPuzzle, score: OmScore) =
         omUrlMapper.createShortUrl(leaderboardScope.shortCurrentHash(), puzzle, score)
 
-    private fun OmMemoryRecord.remove(leaderboardScope: GitRepository.ReadWriteAccess) {
+    private fun OmMemoryRecord.removeFiles(leaderboardScope: GitRepository.ReadWriteAccess) {
         leaderboardScope.rm(record.dataPath.toFile())
         leaderboardScope.rm(record.dataPath.resolveSibling("${record.toFileStem()}.json").toFile())
-        data[record.puzzle]!!.remove(this)
     }
 
     private fun GitRepository.ReadAccess.getPuzzleDir(puzzle: OmPuzzle): File = File(repo, "${puzzle.group.name}/${puzzle.name}")
@@ -370,26 +495,27 @@ class OmSolutionRepository(
     private fun OmRecord.toFileStem() = fileStemOf(puzzle, score)
 
     override fun find(puzzle: OmPuzzle, category: OmCategory): OmRecord? {
-        leaderboard.acquireReadAccess().use { l -> loadDataIfNecessary(l) }
-        return data[puzzle]?.find { category in it.categories }?.record
+        return loadDataIfNecessary().data[puzzle]?.find { category in it.categories }?.record
     }
 
     override fun findCategoryHolders(puzzle: OmPuzzle, includeFrontier: Boolean): List<CategoryRecord<OmRecord, OmCategory>> {
-        leaderboard.acquireReadAccess().use { l -> loadDataIfNecessary(l) }
-        return data[puzzle]
+        return loadDataIfNecessary().data[puzzle]
             ?.filter { includeFrontier || it.categories.isNotEmpty() }
             ?.map(OmMemoryRecord::toCategoryRecord)
             ?: emptyList()
     }
 
-    fun findAll(category: OmCategory): Map<OmPuzzle, OmRecord?> {
-        leaderboard.acquireReadAccess().use { l -> loadDataIfNecessary(l) }
-        return data.entries.filter { category.supportsPuzzle(it.key) }
+    override fun findAll(category: OmCategory): Map<OmPuzzle, OmRecord?> {
+        return loadDataIfNecessary().data.entries.filter { category.supportsPuzzle(it.key) }
             .associate { it.key to it.value.find { mr -> category in mr.categories }?.record }
     }
 
+    /** reads the solution file as committed, without waiting for submissions in progress */
+    fun readRecordFile(record: OmRecord): ByteArray? =
+        leaderboard.acquireSnapshot().use { snapshot -> snapshot.readBytes(snapshot.repo.toPath().relativize(record.dataPath)) }
+
     val records: List<CategoryRecord<OmRecord, OmCategory>>
-        get() = data.values.flatten().map(OmMemoryRecord::toCategoryRecord)
+        get() = immutableData.values.flatten().map(OmMemoryRecord::toCategoryRecord)
 }
 
 enum class OmRecordChangeType {
@@ -397,4 +523,7 @@ enum class OmRecordChangeType {
     REMOVE
 }
 
-data class OmRecordChange(val type: OmRecordChangeType, val record: OmRecord)
\ No newline at end of file
+data class OmRecordChange(val type: OmRecordChangeType, val record: OmRecord)
+
+/** @param nextCursor continues with the following page, null if there are no further changes */
+data class OmRecordChanges(val changes: List<OmRecordChange>, val nextCursor: String?)
\ No newline at end of file
@@ -56,6 +56,7 @@ import org.slf4j.LoggerFactory
 import org.springframework.format.annotation.DateTimeFormat
 import org.springframework.http.HttpStatus
 import org.springframework.http.MediaType
+import org.springframework.http.ResponseEntity
 import org.springframework.web.bind.annotation.GetMapping
 import org.springframework.web.bind.annotation.ModelAttribute
 import org.springframework.web.bind.annotation.PathVariable
@@ -79,6 +80,7 @@ class OmController(
 ) : GameRestController<OmGroupDTO, OmPuzzleDTO, OmCategoryDTO, OmRecordDTO> {
     companion object {
         private val logger = LoggerFactory.getLogger(OmController::class.java)
+        private const val NEXT_CURSOR_HEADER = "X-Next-Cursor"
     }
 
     private val gameUploadScope = CoroutineScope(Dispatchers.IO)
@@ -129,8 +131,13 @@ class OmController(
         return repository.findCategoryHolders(puzzle, includeFrontier ?: false).map { it.toDTO() }
     }
 
-    @GetMapping(path = ["/category/{categoryId}/records"], produces = [MediaType.APPLICATION_JSON_VALUE])
-    fun listRecords(@PathVariable categoryId: String): List<OmRecordDTO> {
+    override fun findCategoryRecords(categoryId: String): List<OmRecordDTO?> {
+        val category = findCategory(categoryId)
+        return repository.findAll(category).entries.sortedBy { it.key }.map { it.value?.withCategory(category)?.toDTO() }
+    }
+
+    /** OM records name their puzzle, so puzzles without a holder are kept as an empty record */
+    override fun listRecords(categoryId: String): List<OmRecordDTO> {
         val category = findCategory(categoryId)
         return repository.findAll(category).entries.sortedBy { it.key }.map { it.value?.withCategory(category)?.toDTO() ?: emptyRecord(it.key) }
     }
@@ -145,7 +152,7 @@ class OmController(
     fun getRecordFile(@PathVariable puzzleId: String, @PathVariable recordId: String): ByteArray =
         repository.findCategoryHolders(findPuzzle(puzzleId), includeFrontier = true)
             .find { recordId == it.record.id }
-            ?.record?.dataPath?.readBytes()
+            ?.record?.let { repository.readRecordFile(it) }
             ?: throw ResponseStatusException(HttpStatus.NOT_FOUND, "Record $recordId not found.")
 
     @PostMapping(path = ["/submit"], consumes = [MediaType.MULTIPART_FORM_DATA_VALUE], produces = [MediaType.APPLICATION_JSON_VALUE])
@@ -214,8 +221,21 @@ class OmController(
     }
 
     @GetMapping(path = ["/records/changes/{since}"], produces = [MediaType.APPLICATION_JSON_VALUE])
-    fun getRecordChanges(@PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) since: java.time.Instant): List<OmRecordChangeDTO> {
-        return repository.computeChangesSince(since.toKotlinInstant()).map { it.toDTO() }
+    fun getRecordChanges(
+        @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) since: java.time.Instant,
+        @RequestParam(required = false) cursor: String?,
+        @RequestParam(required = false) limit: Int?
+    ): ResponseEntity<List<OmRecordChangeDTO>> {
+        if (limit != null && limit <= 0) throw ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive")
+        val changes = try {
+            repository.computeChangesSince(since.toKotlinInstant(), cursor, limit ?: Int.MAX_VALUE)
+        } catch (e: IllegalArgumentException) {
+            throw ResponseStatusException(HttpStatus.BAD_REQUEST, e.message)
+        }
+        // the next page is requested with the same path and ?cursor=<header value>
+        return ResponseEntity.ok()
+            .apply { changes.nextCursor?.let { header(NEXT_CURSOR_HEADER, it) } }
+            .body(changes.changes.map { it.toDTO() })
     }
 
 
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.reddit
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Metrics
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Remembers the last known content and revision of every wiki page, so pages are only fetched again after they were edited
+ * and uploads that would not change anything are skipped.
+ * Every read checks the latest revision first, so a manual edit on reddit is always seen before the page is patched.
+ * Pages of a delegate that doesn't know revisions are fetched every time, only no-op uploads right after a read are skipped then.
+ */
+class CachingRedditService(
+    private val delegate: RedditService,
+    meterRegistry: MeterRegistry = Metrics.globalRegistry,
+) : RedditService by delegate {
+    companion object {
+        private val logger = LoggerFactory.getLogger(CachingRedditService::class.java)
+    }
+
+    private data class Key(val subreddit: Subreddit, val page: String)
+
+    /** @param revision the content belongs to, null if the delegate doesn't know revisions */
+    private data class CachedPage(val content: String, val revision: String?) {
+        val lines by lazy { content.lines() }
+    }
+
+    private val pages = ConcurrentHashMap<Key, CachedPage>()
+    private val fetches = meterRegistry.counter("reddit.wiki.requests", "operation", "get", "outcome", "fetched")
+    private val hits = meterRegistry.counter("reddit.wiki.requests", "operation", "get", "outcome", "cached")
+    private val uploads = meterRegistry.counter("reddit.wiki.requests", "operation", "update", "outcome", "uploaded")
+    private val skips = meterRegistry.counter("reddit.wiki.requests", "operation", "update", "outcome", "skipped")
+
+    override fun getWikiPage(subreddit: Subreddit, page: String): String {
+        val key = Key(subreddit, page)
+        val revision = delegate.getWikiPageRevision(subreddit, page)
+        val cached = pages[key]
+        if (cached != null && revision != null && cached.revision == revision) {
+            hits.increment()
+            return cached.content
+        }
+        // the revision is read first, an edit in between makes the next read fetch again instead of trusting stale content
+        val content = delegate.getWikiPage(subreddit, page)
+        fetches.increment()
+        pages[key] = CachedPage(content, revision)
+        return content
+    }
+
+    override fun updateWikiPage(subreddit: Subreddit, page: String, content: String, reason: String) {
+        val key = Key(subreddit, page)
+        val cached = pages[key]
+        // changed content is uploaded right away, the revision is only probed to prove an identical upload can be skipped
+        if (cached != null && cached.lines == content.lines() && cached.isCurrent(subreddit, page)) {
+            skips.increment()
+            logger.debug("Skipped no-op update of wiki page $page of $subreddit")
+            return
+        }
+        try {
+            delegate.updateWikiPage(subreddit, page, content, reason)
+        } catch (e: Exception) {
+            // we don't know what state the page is in now
+            pages.remove(key)
+            throw e
+        }
+        uploads.increment()
+        // reddit doesn't answer an update with its revision, so it is read right after.
+        // A manual edit in that short window would be taken for ours until the page is edited again
+        val revision = try {
+            delegate.getWikiPageRevision(subreddit, page)
+        } catch (e: Exception) {
+            pages.remove(key)
+            logger.warn("Failed to read revision of wiki page $page of $subreddit after uploading it", e)
+            return
+        }
+        pages[key] = CachedPage(content, revision)
+    }
+
+    /** without revisions the content read or written last is trusted, reads always fetch again then */
+    private fun CachedPage.isCurrent(subreddit: Subreddit, page: String) =
+        revision == null || revision == delegate.getWikiPageRevision(subreddit, page)
+}
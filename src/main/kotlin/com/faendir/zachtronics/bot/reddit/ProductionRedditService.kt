@@ -40,6 +40,9 @@ class ProductionRedditService(redditProperties: RedditProperties) : RedditServic
 
     override fun getWikiPage(subreddit: Subreddit, page: String): String = subreddit(subreddit).wiki().page(page).content
 
+    override fun getWikiPageRevision(subreddit: Subreddit, page: String): String? =
+        subreddit(subreddit).wiki().revisionsFor(page).limit(1).build().next().firstOrNull()?.id
+
     override fun updateWikiPage(subreddit: Subreddit, page: String, content: String, reason: String) {
         val latinReason = reason.replace("\\P{InBasic_Latin}".toRegex(), "?") // reddit cries if the reason has strange chars
         subreddit(subreddit).wiki().update(page, content, latinReason)
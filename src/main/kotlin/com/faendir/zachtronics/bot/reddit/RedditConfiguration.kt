@@ -26,5 +26,6 @@ import org.springframework.context.annotation.Profile
 class RedditConfiguration {
 
     @Bean
-    fun redditService(redditProperties: RedditProperties): RedditService = ProductionRedditService(redditProperties)
+    fun redditService(redditProperties: RedditProperties): RedditService =
+        CachingRedditService(ProductionRedditService(redditProperties))
 }
\ No newline at end of file
@@ -18,6 +18,8 @@ package com.faendir.zachtronics.bot.reddit
 
 interface RedditService {
     fun getWikiPage(subreddit: Subreddit, page: String): String
+    /** id of the latest revision of the page, much cheaper than the page itself. Null if unknown */
+    fun getWikiPageRevision(subreddit: Subreddit, page: String): String? = null
     fun updateWikiPage(subreddit: Subreddit, page: String, content: String, reason: String)
     fun postInSubmission(submissionId: String, content: String)
 }
\ No newline at end of file
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.reddit
+
+import com.faendir.zachtronics.bot.config.RedditProperties
+import com.faendir.zachtronics.bot.git.GitRepository
+import com.google.common.util.concurrent.RateLimiter
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import jakarta.annotation.PreDestroy
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Component
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Keeps wiki pages in sync with the repositories they are generated from, off the submission path.
+ * Changes only mark a page dirty, the page is rendered and uploaded once it saw no changes for the quiet period,
+ * so a burst of submissions to the same page turns into a single read-modify-write.
+ * A page that fails to sync stays dirty and is retried with a backoff.
+ *
+ * @param gitRepositories only injected so this is destroyed before them, pending pages are rendered from them on shutdown
+ */
+@Component
+class RedditWikiSync(
+    private val reddit: RedditService,
+    redditProperties: RedditProperties,
+    @Suppress("unused") gitRepositories: List<GitRepository> = emptyList(),
+) {
+    companion object {
+        private val logger = LoggerFactory.getLogger(RedditWikiSync::class.java)
+        /** reasons past this are only counted */
+        private const val MAX_REASONS = 3
+    }
+
+    /** renders the whole page from repository state */
+    fun interface Renderer {
+        fun render(current: String): String
+    }
+
+    /** renders one of several pages from repository state */
+    fun interface PageRenderer {
+        fun render(page: String, current: String): String
+    }
+
+    /** called on the thread that started the sync, after each finished page */
+    fun interface Progress {
+        fun report(done: Int, total: Int)
+    }
+
+    private data class Key(val subreddit: Subreddit, val page: String)
+
+    private class DirtyPage(val firstMarked: Long, var renderer: Renderer) {
+        val reasons = mutableListOf<String>()
+        var future: ScheduledFuture<*>? = null
+        /** syncs that failed in a row */
+        var failures = 0
+    }
+
+    private val quietPeriod = redditProperties.wikiSyncQuietPeriod.toNanos()
+    private val maxDelay = redditProperties.wikiSyncMaxDelay.toNanos()
+    private val executor = Executors.newSingleThreadScheduledExecutor(ThreadFactoryBuilder().setNameFormat("reddit-wiki-sync").setDaemon(true).build())
+    private val dirty = mutableMapOf<Key, DirtyPage>()
+    private val renderPool = ForkJoinPool(redditProperties.wikiRenderParallelism)
+    private val uploadPool = Executors.newFixedThreadPool(
+        redditProperties.wikiUploadConcurrency,
+        ThreadFactoryBuilder().setNameFormat("reddit-wiki-upload-%d").setDaemon(true).build()
+    )
+    private val uploadLimiter = RateLimiter.create(redditProperties.wikiUploadsPerSecond)
+
+    /** the page gets synced after [RedditProperties.wikiSyncQuietPeriod] without further changes */
+    fun markDirty(subreddit: Subreddit, page: String, reason: String, renderer: Renderer) {
+        val key = Key(subreddit, page)
+        synchronized(dirty) {
+            val now = System.nanoTime()
+            val dirtyPage = add(key, reason, renderer, now)
+            dirtyPage.future?.cancel(false)
+            val delay = minOf(quietPeriod, dirtyPage.firstMarked + maxDelay - now).coerceAtLeast(0)
+            dirtyPage.future = executor.schedule({ sync(key) }, delay, TimeUnit.NANOSECONDS)
+        }
+    }
+
+    /** syncs the page right away, together with its pending changes, and waits for the upload */
+    fun syncNow(subreddit: Subreddit, page: String, reason: String, renderer: Renderer) {
+        val key = Key(subreddit, page)
+        val future = synchronized(dirty) {
+            val dirtyPage = add(key, reason, renderer, System.nanoTime())
+            dirtyPage.future?.cancel(false)
+            dirtyPage.future = null
+            executor.submit { sync(key) }
+        }
+        try {
+            future.get()
+        } catch (e: ExecutionException) {
+            throw e.cause ?: e
+        }
+    }
+
+    /**
+     * Syncs all [pages] right away and waits for them, pending changes to them are folded in.
+     * Pages are rendered in parallel and uploaded concurrently, at most [RedditProperties.wikiUploadsPerSecond].
+     * A failed page doesn't stop the others, the first failure is rethrown at the end
+     */
+    fun syncAll(subreddit: Subreddit, pages: Collection<String>, reason: String, renderer: PageRenderer, progress: Progress) {
+        val reasons = synchronized(dirty) {
+            pages.associateWith { page ->
+                val dirtyPage = dirty.remove(Key(subreddit, page))
+                dirtyPage?.future?.cancel(false)
+                listOf(reason) + dirtyPage?.reasons.orEmpty()
+            }
+        }
+        val finished = LinkedBlockingQueue<Result<Unit>>()
+        for (page in pages) {
+            val key = Key(subreddit, page)
+            CompletableFuture.supplyAsync({ reddit.getWikiPage(subreddit, page) }, uploadPool)
+                .thenApplyAsync({ current -> current to renderer.render(page, current) }, renderPool)
+                .thenAcceptAsync({ (current, content) -> upload(key, current, content, reasons.getValue(page)) }, uploadPool)
+                .whenComplete { _, e ->
+                    if (e != null) {
+                        logger.error("Failed to sync wiki page $page of $subreddit", e)
+                        val failed = DirtyPage(System.nanoTime()) { current -> renderer.render(page, current) }
+                        failed.reasons += reasons.getValue(page)
+                        retry(key, failed)
+                    }
+                    finished.put(if (e == null) Result.success(Unit) else Result.failure((e as? CompletionException)?.cause ?: e))
+                }
+        }
+        val failures = mutableListOf<Throwable>()
+        for (done in 1..pages.size) {
+            finished.take().exceptionOrNull()?.let { failures += it }
+            progress.report(done, pages.size)
+        }
+        if (failures.isNotEmpty()) {
+            throw failures.first().apply { failures.drop(1).forEach { addSuppressed(it) } }
+        }
+    }
+
+    private fun add(key: Key, reason: String, renderer: Renderer, now: Long): DirtyPage {
+        val dirtyPage = dirty.getOrPut(key) { DirtyPage(now, renderer) }
+        dirtyPage.renderer = renderer
+        dirtyPage.reasons += reason
+        return dirtyPage
+    }
+
+    private fun sync(key: Key) {
+        val dirtyPage = synchronized(dirty) { dirty.remove(key) } ?: return
+        try {
+            val current = reddit.getWikiPage(key.subreddit, key.page)
+            upload(key, current, dirtyPage.renderer.render(current), dirtyPage.reasons)
+        } catch (e: Exception) {
+            logger.error("Failed to sync wiki page ${key.page} of ${key.subreddit}", e)
+            retry(key, dirtyPage)
+            throw e
+        }
+    }
+
+    /**
+     * Marks the page of a failed sync dirty again, together with the changes marked meanwhile.
+     * Retries back off exponentially from the quiet period up to [RedditProperties.wikiSyncMaxDelay]
+     */
+    private fun retry(key: Key, failed: DirtyPage) {
+        synchronized(dirty) {
+            // pages still dirty on shutdown are synced once more there, failed ones are given up
+            if (executor.isShutdown) return
+            val dirtyPage = dirty.getOrPut(key) { DirtyPage(failed.firstMarked, failed.renderer) }
+            dirtyPage.reasons.addAll(0, failed.reasons)
+            dirtyPage.failures = failed.failures + 1
+            dirtyPage.future?.cancel(false)
+            val delay = minOf(maxDelay, quietPeriod * (1L shl minOf(dirtyPage.failures, 16)))
+            dirtyPage.future = executor.schedule({ sync(key) }, delay, TimeUnit.NANOSECONDS)
+            logger.info("Retrying sync of wiki page ${key.page} of ${key.subreddit} in ${TimeUnit.NANOSECONDS.toSeconds(delay)}s")
+        }
+    }
+
+    private fun upload(key: Key, current: String, content: String, reasons: List<String>) {
+        if (content.lines() != current.lines()) {
+            uploadLimiter.acquire()
+            reddit.updateWikiPage(key.subreddit, key.page, content, summarize(reasons))
+            logger.info("Synced wiki page ${key.page} of ${key.subreddit} for ${reasons.size} changes")
+        } else {
+            logger.debug("Wiki page ${key.page} of ${key.subreddit} is already up to date")
+        }
+    }
+
+    private fun summarize(reasons: List<String>): String {
+        val distinct = reasons.distinct()
+        val shown = distinct.take(MAX_REASONS).joinToString("; ")
+        return if (distinct.size > MAX_REASONS) "$shown and ${distinct.size - MAX_REASONS} more" else shown
+    }
+
+    /** syncs the pages that are still dirty */
+    @PreDestroy
+    fun shutdown() {
+        synchronized(dirty) {
+            for ((key, dirtyPage) in dirty) {
+                dirtyPage.future?.cancel(false)
+                executor.execute { sync(key) }
+            }
+        }
+        executor.shutdown()
+        if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            logger.warn("Gave up waiting for pending wiki syncs")
+        }
+        renderPool.shutdown()
+        uploadPool.shutdown()
+    }
+}
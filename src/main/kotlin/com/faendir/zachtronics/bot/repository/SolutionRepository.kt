@@ -29,10 +29,20 @@ interface SolutionRepository<C : Category, P : Puzzle<C>, S : Submission<C, P>,
         throw NotImplementedError()
     }
 
+    /** what [submit] would return right now, nothing is changed */
+    fun submitDryRun(submission: S): SubmitResult<R, C>
+
+    /** what [submitAll] would return right now, nothing is changed */
+    fun submitAllDryRun(validationResults: Collection<ValidationResult<S>>): List<SubmitResult<R, C>> =
+        validationResults.map { if (it is ValidationResult.Valid) submitDryRun(it.submission) else SubmitResult.Failure(it.message) }
+
     fun find(puzzle: P, category: C) : R? =
         findCategoryHolders(puzzle, false).firstOrNull { it.categories.contains(category) }?.record
 
     fun findCategoryHolders(puzzle: P, includeFrontier: Boolean) : List<CategoryRecord<R, C>>
+
+    /** @return the holder of [category] for every puzzle supporting it, null if the puzzle has none */
+    fun findAll(category: C): Map<P, R?>
 }
 
 sealed class SubmitResult<R: Record<C>, C: Category> {
@@ -17,13 +17,20 @@
 package com.faendir.zachtronics.bot.rest
 
 
+import com.faendir.zachtronics.bot.repository.SubmitResult
 import com.faendir.zachtronics.bot.rest.dto.RecordDTO
+import com.faendir.zachtronics.bot.rest.dto.toType
 import org.springframework.http.MediaType
 import org.springframework.web.bind.annotation.GetMapping
 import org.springframework.web.bind.annotation.PathVariable
 import org.springframework.web.bind.annotation.RequestParam
 
 interface GameRestController<GroupDTO, PuzzleDTO, CategoryDTO, RecDTO: RecordDTO<*>> {
+    companion object {
+        /** author of stats requests that don't name one */
+        const val ANONYMOUS = "anonymous"
+    }
+
     @get:GetMapping(path = ["/groups"], produces = [MediaType.APPLICATION_JSON_VALUE])
     val groups: List<GroupDTO>
 
@@ -45,6 +52,16 @@ interface GameRestController<GroupDTO, PuzzleDTO, CategoryDTO, RecDTO: RecordDTO
     @GetMapping(path = ["/puzzle/{puzzleId}/records"], produces = [MediaType.APPLICATION_JSON_VALUE])
     fun listRecords(@PathVariable puzzleId: String, @RequestParam(required = false) includeFrontier: Boolean?): List<RecDTO>
 
+    /** @return the holder of the category for every puzzle supporting it in puzzle order, null if the puzzle has none */
+    fun findCategoryRecords(categoryId: String): List<RecDTO?>
+
+    /** puzzles without a holder are left out, the record DTOs don't name their puzzle so an empty entry would be meaningless */
+    @GetMapping(path = ["/category/{categoryId}/records"], produces = [MediaType.APPLICATION_JSON_VALUE])
+    fun listRecords(@PathVariable categoryId: String): List<RecDTO> = findCategoryRecords(categoryId).filterNotNull()
+
     @GetMapping(path = ["/puzzle/{puzzleId}/category/{categoryId}/record"], produces = [MediaType.APPLICATION_JSON_VALUE])
     fun getRecord(@PathVariable puzzleId: String, @PathVariable categoryId: String): RecDTO?
+
+    /** body of every game's stats endpoint, the type of each dry-run result next to the result itself */
+    fun statsOf(results: List<SubmitResult<*, *>>): List<Map<String, Any>> = results.map { mapOf("result" to it.toType(), "data" to it) }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DominanceIndexTest {
+    private record Entry(int partition, int[] metrics) {
+    }
+
+    @Test
+    public void testCompare() {
+        assertEquals(-1, DominanceIndex.compare(0, new int[]{1, 2, 0}, 0, new int[]{1, 2, 0}));
+        assertEquals(-1, DominanceIndex.compare(0, new int[]{1, 2, 0}, 0, new int[]{1, 3, 1}));
+        assertEquals(1, DominanceIndex.compare(0, new int[]{1, 3, 1}, 0, new int[]{1, 2, 0}));
+        assertEquals(0, DominanceIndex.compare(0, new int[]{1, 3, 0}, 0, new int[]{2, 2, 0}));
+        assertEquals(0, DominanceIndex.compare(0, new int[]{1, 2, 0}, 1, new int[]{1, 2, 0}));
+    }
+
+    @Test
+    public void testQueriesMatchLinearScan() {
+        Random random = new Random(42);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            entries.add(randomEntry(random));
+        }
+        DominanceIndex index = DominanceIndex.of(entries, Entry::partition, Entry::metrics);
+        assertEquals(entries.size(), index.size());
+
+        for (int q = 0; q < 1000; q++) {
+            Entry candidate = randomEntry(random);
+            int firstDominating = IntStream.range(0, entries.size())
+                                           .filter(i -> compare(candidate, entries.get(i)) > 0)
+                                           .findFirst()
+                                           .orElse(-1);
+            int[] dominated = IntStream.range(0, entries.size())
+                                       .filter(i -> compare(candidate, entries.get(i)) < 0)
+                                       .toArray();
+            assertEquals(firstDominating, index.firstDominating(candidate.partition(), candidate.metrics()));
+            assertArrayEquals(dominated, index.dominated(candidate.partition(), candidate.metrics()));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        DominanceIndex index = DominanceIndex.of(List.<Entry>of(), Entry::partition, Entry::metrics);
+        assertEquals(-1, index.firstDominating(0, new int[]{1, 2, 3}));
+        assertArrayEquals(new int[0], index.dominated(0, new int[]{1, 2, 3}));
+    }
+
+    private static Entry randomEntry(Random random) {
+        return new Entry(random.nextInt(2), new int[]{random.nextInt(20), random.nextInt(20), random.nextInt(20), random.nextInt(2)});
+    }
+
+    private static int compare(Entry e1, Entry e2) {
+        return DominanceIndex.compare(e1.partition(), e1.metrics(), e2.partition(), e2.metrics());
+    }
+}
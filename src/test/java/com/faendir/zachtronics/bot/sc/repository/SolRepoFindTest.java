@@ -25,6 +25,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -78,4 +79,21 @@ public class SolRepoFindTest {
         List<?> paretoFrontier = repository.findCategoryHolders(ScPuzzle.research_example_1, true);
         assertEquals(9, paretoFrontier.size());
     }
+
+    @Test
+    public void testRepeatedReadsDoNotReparse() {
+        repository.findCategoryHolders(ScPuzzle.research_example_1, true);
+        long misses = repository.getSolutionsCacheStats().missCount();
+        List<?> paretoFrontier = repository.findCategoryHolders(ScPuzzle.research_example_1, true);
+        assertEquals(9, paretoFrontier.size());
+        assertNotNull(repository.find(ScPuzzle.research_example_1, ScCategory.C));
+        assertEquals(misses, repository.getSolutionsCacheStats().missCount());
+    }
+
+    @Test
+    public void testFindAll() {
+        Map<ScPuzzle, ScRecord> records = repository.findAll(ScCategory.C);
+        assertEquals(repository.find(ScPuzzle.research_example_1, ScCategory.C), records.get(ScPuzzle.research_example_1));
+        assertTrue(records.keySet().stream().allMatch(p -> p.getSupportedCategories().contains(ScCategory.C)));
+    }
 }
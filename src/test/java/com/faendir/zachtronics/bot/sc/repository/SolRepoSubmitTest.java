@@ -20,13 +20,17 @@ import com.faendir.zachtronics.bot.BotTest;
 import com.faendir.zachtronics.bot.repository.CategoryRecord;
 import com.faendir.zachtronics.bot.repository.SubmitResult;
 import com.faendir.zachtronics.bot.sc.model.*;
+import com.faendir.zachtronics.bot.validation.ValidationResult;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
@@ -104,6 +108,52 @@ public class SolRepoSubmitTest {
         assertInstanceOf(SubmitResult.AlreadyPresent.class, doSubmitDataVideo(data, null)); // cannot regress video state
     }
 
+    @Test
+    public void testSubmitAll() {
+        // we start at 100/100/100, same sequence as testSubmitData, but in a single batch
+        List<SubmitResult<ScRecord, ScCategory>> results = repository.submitAll(submitAllBatch());
+        assertSubmitAllResults(results);
+        // 45/1/14 beats 50/50/50 within the batch, so only the former is archived
+        SubmitResult.NothingBeaten<ScRecord, ScCategory> superseded = (SubmitResult.NothingBeaten<ScRecord, ScCategory>) results.get(0);
+        assertEquals(List.of(45), superseded.getRecords().stream().map(cr -> cr.getRecord().getScore().getCycles()).toList());
+    }
+
+    @Test
+    public void testSubmitAllDryRun() {
+        // same batch as testSubmitAll, nothing may be archived
+        List<ValidationResult<ScSubmission>> validationResults = submitAllBatch();
+        assertSubmitAllResults(repository.submitAllDryRun(validationResults));
+
+        // we still start at 100/100/100
+        assertInstanceOf(SubmitResult.Success.class, repository.submitDryRun(validationResults.get(1).getSubmission()));
+        assertInstanceOf(SubmitResult.Success.class, doSubmitData("SOLUTION:A Most Unfortunate Malfunction,12345ieee,45-1-14\nbunch of stuff..."));
+    }
+
+    @NotNull
+    private static List<ValidationResult<ScSubmission>> submitAllBatch() {
+        List<ValidationResult<ScSubmission>> validationResults = Stream.of(
+                "SOLUTION:A Most Unfortunate Malfunction,12345ieee,50-50-50\nbunch of stuff...",
+                "SOLUTION:A Most Unfortunate Malfunction,12345ieee,45-1-14\nbunch of stuff...",
+                "SOLUTION:A Most Unfortunate Malfunction,12345ieee,45-1-14\nbunch of stuff...",
+                "SOLUTION:A Most Unfortunate Malfunction,BadGuy,45-1-14\ndifferent stuff...",
+                "SOLUTION:A Most Unfortunate Malfunction,BadGuy,50-1-50\nsome more stuff...")
+            .map(data -> ScSubmission.fromDataNoValidation(data, null, null))
+            .<ValidationResult<ScSubmission>>map(ValidationResult.Valid::new)
+            .collect(Collectors.toCollection(ArrayList::new));
+        validationResults.add(new ValidationResult.Unparseable<>("broken"));
+        return validationResults;
+    }
+
+    private static void assertSubmitAllResults(@NotNull List<SubmitResult<ScRecord, ScCategory>> results) {
+        assertEquals(6, results.size());
+        assertInstanceOf(SubmitResult.NothingBeaten.class, results.get(0));
+        assertInstanceOf(SubmitResult.Success.class, results.get(1));
+        assertInstanceOf(SubmitResult.AlreadyPresent.class, results.get(2));
+        assertInstanceOf(SubmitResult.AlreadyPresent.class, results.get(3));
+        assertInstanceOf(SubmitResult.NothingBeaten.class, results.get(4));
+        assertInstanceOf(SubmitResult.Failure.class, results.get(5));
+    }
+
     @NotNull
     private SubmitResult<ScRecord, ScCategory> doSubmitScore(@NotNull ScScore score) {
         String data = "SOLUTION:A Most Unfortunate Malfunction,12345ieee," + score.toExportString();
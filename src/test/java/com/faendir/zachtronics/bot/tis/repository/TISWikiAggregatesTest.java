@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.tis.repository;
+
+import com.faendir.zachtronics.bot.tis.model.TISCategory;
+import com.faendir.zachtronics.bot.tis.model.TISPuzzle;
+import com.faendir.zachtronics.bot.tis.model.TISScore;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TISWikiAggregatesTest {
+    private static final TISPuzzle PUZZLE = TISPuzzle.SIGNAL_AMPLIFIER;
+    private static final TISPuzzle OTHER_PUZZLE = TISPuzzle.SEQUENCE_MERGER;
+
+    @Test
+    public void testIncrementalUpdate() {
+        TISWikiAggregates aggregates = new TISWikiAggregates(List.of(PUZZLE, OTHER_PUZZLE));
+        List<TISSolution> solutions = List.of(solution(10, "A/B/C", TISCategory.CN), solution(12, "A", null));
+        aggregates.update(PUZZLE, rows(solutions, 10));
+        aggregates.update(OTHER_PUZZLE, rows(List.of(), 0));
+        assertTrue(aggregates.isCurrent(PUZZLE, List.copyOf(solutions)));
+
+        List<String> lines = render(aggregates);
+        assertTrue(lines.contains("| **Totals** | **10** | **2** | **20**"));
+        assertEquals(List.of("| 0.33 | A, B, C"), leaderboard(lines, "# Most record solutions"));
+        assertEquals(List.of("| 1.33 | A", "| 0.33 | B, C"), leaderboard(lines, "# Most frontier solutions"));
+
+        List<TISSolution> newSolutions = List.of(solution(8, "A", TISCategory.CN));
+        assertFalse(aggregates.isCurrent(PUZZLE, newSolutions));
+        aggregates.update(PUZZLE, rows(newSolutions, 8));
+
+        lines = render(aggregates);
+        assertTrue(lines.contains("| **Totals** | **8** | **2** | **20**"));
+        // the thirds of B and C cancel out exactly, so they disappear
+        assertEquals(List.of("| 1 | A"), leaderboard(lines, "# Most record solutions"));
+        assertEquals(List.of("| 1 | A"), leaderboard(lines, "# Most frontier solutions"));
+    }
+
+    @NotNull
+    private static TISSolution solution(int cycles, @NotNull String author, TISCategory category) {
+        TISSolution solution = new TISSolution(new TISScore(cycles, 2, 20, false, false, false), author, null);
+        if (category != null)
+            solution.getCategories().add(category);
+        return solution;
+    }
+
+    @NotNull
+    private static TISWikiAggregates.PuzzleRows rows(@NotNull List<TISSolution> solutions, int cycles) {
+        int[] totals = cycles == 0 ? new int[3] : new int[]{cycles, 2, 20};
+        return new TISWikiAggregates.PuzzleRows(solutions, List.of("| row"), totals, List.of(), new int[3], List.of(), new int[3]);
+    }
+
+    @NotNull
+    private static List<String> render(@NotNull TISWikiAggregates aggregates) {
+        List<String> lines = new ArrayList<>();
+        aggregates.render(lines.listIterator());
+        return lines;
+    }
+
+    /** rows of the table after the header */
+    @NotNull
+    private static List<String> leaderboard(@NotNull List<String> lines, @NotNull String header) {
+        List<String> table = lines.subList(lines.indexOf(header) + 4, lines.size());
+        int end = table.indexOf("");
+        return end == -1 ? table : table.subList(0, end);
+    }
+}
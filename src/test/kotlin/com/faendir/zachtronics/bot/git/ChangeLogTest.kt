@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.git
+
+import com.faendir.zachtronics.bot.config.GitProperties
+import com.faendir.zachtronics.bot.createGitRepositoryFrom
+import com.faendir.zachtronics.bot.testutils.JGitNoExternalConfigReader
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.datetime.Clock
+import kotlinx.datetime.Instant
+import org.eclipse.jgit.diff.DiffEntry
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import strikt.api.expectThat
+import strikt.api.expectThrows
+import strikt.assertions.first
+import strikt.assertions.hasSize
+import strikt.assertions.isEmpty
+import strikt.assertions.isEqualTo
+import strikt.assertions.isNotNull
+import strikt.assertions.isNull
+import java.io.File
+import java.nio.file.Files
+
+class ChangeLogTest {
+    init {
+        JGitNoExternalConfigReader.install()
+    }
+
+    private val gitProperties = GitProperties().apply {
+        accessToken = ""
+        username = "zachtronics-bot-test"
+        readonlyMode = true
+    }
+    private lateinit var gitRepository: GitRepository
+    private lateinit var changeLog: ChangeLog
+
+    @BeforeEach
+    internal fun setUp() {
+        gitRepository = createGitRepositoryFrom(Files.createTempDirectory("repository").toFile(), gitProperties)
+        changeLog = ChangeLog(gitRepository) { true }
+    }
+
+    @AfterEach
+    internal fun tearDown() {
+        gitRepository.cleanup()
+    }
+
+    private fun GitRepository.ReadWriteAccess.write(vararg names: String) {
+        for (name in names) {
+            val file = File(repo, name)
+            file.writeText(name)
+            add(file)
+        }
+        commit(names.joinToString())
+    }
+
+    /** commit times have a resolution of a second */
+    private fun instantBetweenCommits(): Instant = runBlocking {
+        delay(1000)
+        Clock.System.now().also { delay(1000) }
+    }
+
+    private fun readBlob(change: ChangeLog.LoggedChange) = gitRepository.acquireSnapshot().use { String(it.readBytes(change.blobId)) }
+
+    @Test
+    fun `should return only changes since`() {
+        gitRepository.acquireWriteAccess().use { access ->
+            access.write("file1")
+            val since = instantBetweenCommits()
+            access.write("file2")
+
+            expectThat(changeLog.slice(since, null, Int.MAX_VALUE)) {
+                get { next }.isNull()
+                get { changes }.hasSize(1).first().and {
+                    get { type }.isEqualTo(DiffEntry.ChangeType.ADD)
+                    get { path }.isEqualTo("file2")
+                    get { readBlob(this) }.isEqualTo("file2")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `should return net changes`() {
+        gitRepository.acquireWriteAccess().use { access ->
+            access.write("kept")
+            val since = instantBetweenCommits()
+            access.write("temporary")
+            access.rm(File(access.repo, "temporary"))
+            access.rm(File(access.repo, "kept"))
+            access.commit("remove")
+
+            expectThat(changeLog.slice(since, null, Int.MAX_VALUE).changes).hasSize(1).first().and {
+                get { type }.isEqualTo(DiffEntry.ChangeType.DELETE)
+                get { path }.isEqualTo("kept")
+                get { readBlob(this) }.isEqualTo("kept")
+            }
+        }
+    }
+
+    @Test
+    fun `should page from the head of the first slice`() {
+        gitRepository.acquireWriteAccess().use { access ->
+            val since = instantBetweenCommits()
+            access.write("a", "b", "c")
+
+            val first = changeLog.slice(since, null, 2)
+            expectThat(first.changes.map { it.path }).isEqualTo(listOf("a", "b"))
+            expectThat(first.next).isNotNull()
+
+            access.write("d")
+            val second = changeLog.slice(since, first.next, 2)
+            expectThat(second.changes.map { it.path }).isEqualTo(listOf("c"))
+            expectThat(second.next).isNull()
+        }
+    }
+
+    @Test
+    fun `should return empty if nothing changed since`() {
+        expectThat(changeLog.slice(Clock.System.now(), null, Int.MAX_VALUE).changes).isEmpty()
+    }
+
+    @Test
+    fun `should reject unknown cursors`() {
+        expectThrows<IllegalArgumentException> { changeLog.slice(Clock.System.now(), "invalid", 1) }
+        expectThrows<IllegalArgumentException> { changeLog.slice(Clock.System.now(), "0123456789012345678901234567890123456789:0", 1) }
+    }
+}
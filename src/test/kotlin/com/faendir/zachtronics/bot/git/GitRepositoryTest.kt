@@ -19,22 +19,23 @@ package com.faendir.zachtronics.bot.git
 import com.faendir.zachtronics.bot.config.GitProperties
 import com.faendir.zachtronics.bot.createGitRepositoryFrom
 import com.faendir.zachtronics.bot.testutils.JGitNoExternalConfigReader
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.runBlocking
-import kotlinx.datetime.Clock
-import org.eclipse.jgit.diff.DiffEntry
+import kotlinx.coroutines.withTimeout
+import org.eclipse.jgit.api.Git
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import strikt.api.expectThat
-import strikt.assertions.first
-import strikt.assertions.hasSize
-import strikt.assertions.isEmpty
+import strikt.api.expectThrows
 import strikt.assertions.isEqualTo
 import strikt.assertions.isFalse
+import strikt.assertions.isNull
 import strikt.assertions.isTrue
 import java.io.File
 import java.nio.file.Files
+import java.nio.file.Path
 
 class GitRepositoryTest {
     init {
@@ -45,11 +46,13 @@ class GitRepositoryTest {
         accessToken = ""
         username = "zachtronics-bot-test"
     }
+    private lateinit var origin: File
     private lateinit var gitRepository: GitRepository
 
     @BeforeEach
     internal fun setUp() {
-        gitRepository = createGitRepositoryFrom(Files.createTempDirectory("repository").toFile(), gitProperties)
+        origin = Files.createTempDirectory("repository").toFile()
+        gitRepository = createGitRepositoryFrom(origin, gitProperties)
     }
 
     @AfterEach
@@ -58,77 +61,219 @@ class GitRepositoryTest {
     }
 
     @Test
-    fun `should return only changes since`() {
+    fun `should list paths changed since commit`() {
         gitRepository.acquireWriteAccess().use { access ->
-            runBlocking {
-                val file1 = File(access.repo, "file1")
-                file1.writeText("file1")
-                access.add(file1)
-                access.commitAndPush("file1")
-                delay(1000)
-                val timestamp = Clock.System.now()
-                delay(1000)
-                val file2 = File(access.repo, "file2")
-                file2.writeText("file2")
-                access.add(file2)
-                access.commitAndPush("file2")
-
-                expectThat(access.changesSince(timestamp)).hasSize(1).and {
-                    first().get { type }.isEqualTo(DiffEntry.ChangeType.ADD)
-                    first().get { newName }.isEqualTo("file2")
-                }
+            File(access.repo, "dir").mkdirs()
+            val kept = File(access.repo, "dir/kept")
+            kept.writeText("kept")
+            val removed = File(access.repo, "dir/removed")
+            removed.writeText("removed")
+            access.add(kept)
+            access.add(removed)
+            val since = access.commit("files").name()
+
+            access.rm(removed)
+            val added = File(access.repo, "added")
+            added.writeText("added")
+            access.add(added)
+            access.commit("changes")
+
+            expectThat(access.changedPathsSince(since)).isEqualTo(setOf("dir/removed", "added"))
+            expectThat(access.changedPathsSince(access.currentHash())).isEqualTo(emptySet())
+            expectThat(access.changedPathsSince("0123456789012345678901234567890123456789")).isNull()
+        }
+    }
+
+    @Test
+    fun `should wait for clone before granting access`() {
+        val pending = mutableListOf<Runnable>()
+        val source = Files.createTempDirectory("source").toFile()
+        Git.init().setDirectory(source).call().use {
+            it.commit()
+                .setAllowEmpty(true)
+                .setAuthor("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setCommitter("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setMessage("[BOT] initial commit")
+                .call()
+        }
+        val repository = GitRepository(gitProperties, "delayed", source.toURI().toString(), initExecutor = { pending.add(it) })
+        try {
+            expectThat(repository.ready.isDone).isFalse()
+            val thread = Thread {
+                repository.acquireReadAccess().close()
             }
+            thread.start()
+            thread.join(1000)
+            expectThat(thread.isAlive).isTrue()
+
+            pending.forEach(Runnable::run)
+            thread.join(1000)
+            expectThat(thread.isAlive).isFalse()
+        } finally {
+            repository.cleanup()
+            source.deleteRecursively()
         }
     }
 
     @Test
-    fun `should return new content for added`() {
-        gitRepository.acquireWriteAccess().use { access ->
-            runBlocking {
-                val timestamp = Clock.System.now()
-                delay(1000)
+    fun `should reuse persistent working copy`() {
+        val root = Files.createTempDirectory("repositories").toFile()
+        val properties = GitProperties().apply {
+            accessToken = ""
+            username = "zachtronics-bot-test"
+            repositoriesRoot = root.path
+        }
+        val source = gitRepository.acquireReadAccess().use { it.repo }
+        try {
+            GitRepository(properties, "persistent", source.toURI().toString()).cleanup()
+            val marker = File(root, "persistent/marker")
+            marker.writeText("survives restart")
+
+            gitRepository.acquireWriteAccess().use { access ->
                 val file = File(access.repo, "file")
                 file.writeText("file")
                 access.add(file)
-                access.commitAndPush("file")
+                access.commit("file")
+            }
 
-                expectThat(access.changesSince(timestamp)).hasSize(1).and {
-                    first().get { type }.isEqualTo(DiffEntry.ChangeType.ADD)
-                    first().get { newName }.isEqualTo("file")
-                    first().get { newContent!!.openStream().bufferedReader().use { it.readText() } }.isEqualTo("file")
-                }
+            val reopened = GitRepository(properties, "persistent", source.toURI().toString())
+            try {
+                expectThat(File(root, "persistent/file").readText()).isEqualTo("file")
+                // untracked leftovers from a previous run are cleaned
+                expectThat(marker.exists()).isFalse()
+            } finally {
+                reopened.cleanup()
             }
+        } finally {
+            root.deleteRecursively()
         }
     }
 
     @Test
-    fun `should return old content for deleted`() {
-        gitRepository.acquireWriteAccess().use { access ->
-            runBlocking {
-                val file = File(access.repo, "file")
-                file.writeText("file")
+    fun `should keep unpushed commits of a diverged working copy`() {
+        val root = Files.createTempDirectory("repositories").toFile()
+        val properties = GitProperties().apply {
+            accessToken = ""
+            username = "zachtronics-bot-test"
+            repositoriesRoot = root.path
+            readonlyMode = true
+        }
+        val source = gitRepository.acquireReadAccess().use { it.repo }
+        try {
+            GitRepository(properties, "persistent", source.toURI().toString()).cleanup()
+            Git.open(File(root, "persistent")).use { git ->
+                File(root, "persistent/local").writeText("local")
+                git.add().addFilepattern("local").call()
+                git.commit()
+                    .setAuthor("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                    .setCommitter("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                    .setMessage("[BOT] unpushed")
+                    .call()
+            }
+
+            gitRepository.acquireWriteAccess().use { access ->
+                val file = File(access.repo, "remote")
+                file.writeText("remote")
                 access.add(file)
-                access.commitAndPush("file")
-                delay(1000)
-                val timestamp = Clock.System.now()
-                delay(1000)
-                access.rm(file)
-                access.commitAndPush("remove file")
-
-                expectThat(access.changesSince(timestamp)).hasSize(1).and {
-                    first().get { type }.isEqualTo(DiffEntry.ChangeType.DELETE)
-                    first().get { oldName }.isEqualTo("file")
-                    first().get { oldContent!!.openStream().bufferedReader().use { it.readText() } }.isEqualTo("file")
-                }
+                access.commit("remote")
+            }
+
+            val reopened = GitRepository(properties, "persistent", source.toURI().toString())
+            try {
+                reopened.ready.join()
+                expectThat(File(root, "persistent/local").readText()).isEqualTo("local")
+                expectThat(File(root, "persistent/remote").readText()).isEqualTo("remote")
+            } finally {
+                reopened.cleanup()
             }
+        } finally {
+            root.deleteRecursively()
         }
     }
 
+    @Test
+    fun `should fetch remote changes in background`() {
+        val remoteHash = Git.open(origin).use { git ->
+            File(origin, "remote").writeText("remote")
+            git.add().addFilepattern("remote").call()
+            git.commit()
+                .setAuthor("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setCommitter("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setMessage("[BOT] remote")
+                .call()
+                .name
+        }
+        gitRepository.updateRemoteHash(remoteHash)
+
+        runBlocking {
+            withTimeout(10_000) {
+                while (gitRepository.acquireReadAccess().use { it.currentHash() } != remoteHash) {
+                    delay(100)
+                }
+            }
+        }
+        gitRepository.acquireReadAccess().use { access ->
+            expectThat(File(access.repo, "remote").readText()).isEqualTo("remote")
+        }
+    }
 
     @Test
-    fun `should return empty if repo has no commits`() {
+    fun `should roll back a conflicting merge of remote changes`() {
+        gitRepository.acquireWriteAccess().use { access ->
+            val file = File(access.repo, "file")
+            file.writeText("local")
+            access.add(file)
+            access.commit("local")
+        }
+        val remoteHash = Git.open(origin).use { git ->
+            File(origin, "file").writeText("remote")
+            git.add().addFilepattern("file").call()
+            git.commit()
+                .setAuthor("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setCommitter("zachtronics-bot-test", "zachtronics-bot-test@faendir.com")
+                .setMessage("[BOT] remote")
+                .call()
+                .name
+        }
+        gitRepository.updateRemoteHash(remoteHash)
+
+        expectThrows<IllegalStateException> { gitRepository.acquireWriteAccess().close() }
         gitRepository.acquireReadAccess().use { access ->
-            expectThat(access.changesSince(Clock.System.now())).isEmpty()
+            expectThat(File(access.repo, "file").readText()).isEqualTo("local")
+            expectThat(access.status().isClean).isTrue()
+        }
+    }
+
+    @Test
+    fun `should record operation and lock metrics`() {
+        val registry = SimpleMeterRegistry()
+        val metered = GitRepository(gitProperties, "metered", origin.toURI().toString(), meterRegistry = registry)
+        try {
+            val access = metered.acquireWriteAccess()
+            val file = File(access.repo, "file")
+            file.writeText("file")
+            access.add(file)
+            access.commit("file")
+
+            val reader = Thread { metered.acquireReadAccess().close() }
+            reader.start()
+            runBlocking {
+                withTimeout(10_000) {
+                    while (registry.get("git.lock.waiting").tags("repository", "metered", "lock", "read").gauge().value() != 1.0) {
+                        delay(10)
+                    }
+                }
+            }
+            access.close()
+            reader.join(10_000)
+
+            expectThat(registry.get("git.operations").tags("repository", "metered", "operation", "clone").timer().count()).isEqualTo(1)
+            expectThat(registry.get("git.operations").tags("repository", "metered", "operation", "commit").timer().count()).isEqualTo(1)
+            expectThat(registry.get("git.lock.wait").tags("repository", "metered", "lock", "write").timer().count()).isEqualTo(1)
+            expectThat(registry.get("git.lock.wait").tags("repository", "metered", "lock", "read").timer().count()).isEqualTo(1)
+            expectThat(registry.get("git.lock.waiting").tags("repository", "metered", "lock", "read").gauge().value()).isEqualTo(0.0)
+        } finally {
+            metered.cleanup()
         }
     }
 
@@ -169,4 +314,67 @@ class GitRepositoryTest {
             thread.interrupt()
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `should allow concurrent writes to different stripes`() {
+        gitRepository.acquireWriteAccess("puzzle1").use {
+            val thread = Thread {
+                gitRepository.acquireWriteAccess("puzzle2").close()
+            }
+            thread.start()
+            thread.join(1000)
+            expectThat(thread.isAlive).isFalse()
+        }
+    }
+
+    @Test
+    fun `should not allow concurrent writes to the same stripe`() {
+        gitRepository.acquireWriteAccess("puzzle1").use {
+            val thread = Thread {
+                gitRepository.acquireWriteAccess("puzzle1").close()
+            }
+            thread.start()
+            thread.join(1000)
+            expectThat(thread.isAlive).isTrue()
+            thread.interrupt()
+        }
+    }
+
+    @Test
+    fun `should only commit own stripe`() {
+        val first = gitRepository.acquireWriteAccess("puzzle1")
+        val second = gitRepository.acquireWriteAccess("puzzle2")
+        try {
+            val file1 = File(first.repo, "puzzle1/file").apply { parentFile.mkdirs() }
+            val file2 = File(second.repo, "puzzle2/file").apply { parentFile.mkdirs() }
+            file1.writeText("file1")
+            file2.writeText("file2")
+            first.addAll(file1.parentFile)
+            first.commit("puzzle1")
+            expectThat(first.status().untracked).isEqualTo(setOf("puzzle2/file"))
+            second.addAll(file2.parentFile)
+            second.commit("puzzle2")
+            expectThat(second.status().isClean).isTrue()
+        } finally {
+            second.close()
+            first.close()
+        }
+    }
+
+    @Test
+    fun `should read committed state from snapshot during write`() {
+        gitRepository.acquireWriteAccess().use { access ->
+            val file = File(access.repo, "dir/file").apply { parentFile.mkdirs() }
+            file.writeText("committed")
+            access.add(file)
+            access.commit("file")
+            file.writeText("in progress")
+
+            gitRepository.acquireSnapshot().use { snapshot ->
+                expectThat(snapshot.readBytes(Path.of("dir", "file"))?.decodeToString()).isEqualTo("committed")
+                expectThat(snapshot.readBytes(Path.of("dir", "missing"))).isNull()
+                expectThat(snapshot.listFiles(Path.of("dir"))).isEqualTo(listOf("file"))
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.git
+
+import org.junit.jupiter.api.Test
+import strikt.api.expectThat
+import strikt.api.expectThrows
+import strikt.assertions.isEqualTo
+import strikt.assertions.isTrue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PushQueueTest {
+
+    @Test
+    fun `should collapse requests made while pushing`() {
+        val pushes = AtomicInteger()
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val queue = PushQueue("test") {
+            pushes.incrementAndGet()
+            started.countDown()
+            release.await()
+        }
+        val first = queue.request()
+        started.await()
+        val queued = (1..5).map { queue.request() }
+        release.countDown()
+
+        first.get(10, TimeUnit.SECONDS)
+        queued.forEach { it.get(10, TimeUnit.SECONDS) }
+        queue.shutdown()
+        expectThat(pushes.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun `should retry and report failure`() {
+        val attempts = AtomicInteger()
+        val queue = PushQueue("test", maxAttempts = 2) {
+            attempts.incrementAndGet()
+            throw IllegalStateException("remote unavailable")
+        }
+        val result = queue.request()
+        val failed = try {
+            result.get(10, TimeUnit.SECONDS)
+            false
+        } catch (e: ExecutionException) {
+            true
+        }
+        queue.shutdown()
+        expectThat(failed).isTrue()
+        expectThat(attempts.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun `should catch up before pushing again when the remote moved`() {
+        val caughtUp = AtomicInteger()
+        val queue = PushQueue("test", catchUp = { caughtUp.incrementAndGet() }) {
+            if (caughtUp.get() == 0) throw RemoteMovedException("rejected")
+        }
+        queue.request().get(10, TimeUnit.SECONDS)
+        queue.shutdown()
+        expectThat(caughtUp.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun `should keep pushing after an error`() {
+        val attempts = AtomicInteger()
+        val queue = PushQueue("test") {
+            if (attempts.incrementAndGet() == 1) throw AssertionError("unexpected")
+        }
+        expectThrows<ExecutionException> { queue.request().get(10, TimeUnit.SECONDS) }
+        queue.request().get(10, TimeUnit.SECONDS)
+        queue.shutdown()
+        expectThat(attempts.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun `should fail requests after shutdown`() {
+        val queue = PushQueue("test") {}
+        queue.shutdown()
+        expectThrows<ExecutionException> { queue.request().get(10, TimeUnit.SECONDS) }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.om.model
+
+import com.faendir.zachtronics.bot.utils.InfinInt.Companion.toInfinInt
+import com.faendir.zachtronics.bot.utils.LevelValue
+import org.junit.jupiter.api.Test
+import strikt.api.expectThat
+import strikt.assertions.isEqualTo
+import kotlin.random.Random
+
+class OmScoreManifoldTest {
+
+    @Test
+    fun `frontier matches pairwise comparison`() {
+        val random = Random(42)
+        // small value ranges, so there are plenty of ties and duplicates
+        val scores = List(300) {
+            val looping = random.nextInt(3) != 0
+            OmScore(
+                cost = random.nextInt(10), instructions = random.nextInt(10),
+                overlap = random.nextInt(5) == 0, trackless = random.nextBoolean(),
+                cycles = random.nextInt(10), area = random.nextInt(10),
+                height = random.nextInt(5), width = random.nextInt(5) / 2.0, boundingHex = random.nextInt(5).takeIf { it != 0 },
+                rate = if (looping) random.nextInt(10) / 2.0 else null,
+                areaINF = if (looping) LevelValue(random.nextInt(2), random.nextInt(5).toDouble()) else null,
+                heightINF = if (looping) random.nextInt(5).toInfinInt() else null,
+                widthINF = if (looping) random.nextInt(5).toDouble() else null,
+                boundingHexINF = if (looping) random.nextInt(5).toInfinInt() else null,
+            )
+        }
+        for (manifold in OmScoreManifold.entries) {
+            val expected = scores.map { score ->
+                manifold.supportsScore(score) && scores.none { other ->
+                    val compares = manifold.frontierCompare(score, other)
+                    compares.all { it >= 0 } && compares.any { it > 0 }
+                }
+            }
+            expectThat(manifold.frontierOf(scores).toList()).describedAs(manifold.name).isEqualTo(expected)
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.faendir.zachtronics.bot.om.model.OmRecord
 import com.faendir.zachtronics.bot.repository.SubmitResult
 import com.faendir.zachtronics.bot.testutils.TestGitRepository
 import io.mockk.mockk
+import kotlinx.datetime.Clock
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
@@ -39,8 +40,13 @@ import strikt.assertions.hasSize
 import strikt.assertions.isA
 import strikt.assertions.isEmpty
 import strikt.assertions.isEqualTo
+import strikt.assertions.isNotNull
+import strikt.assertions.isNull
+import strikt.assertions.isTrue
 import strikt.assertions.none
 import java.io.File
+import java.util.*
+import kotlin.time.Duration.Companion.minutes
 
 class OmSolutionRepositoryTest {
     private val gitProperties = GitProperties().apply {
@@ -51,6 +57,9 @@ class OmSolutionRepositoryTest {
     @TempDir
     private lateinit var leaderboardDir: File
 
+    @TempDir
+    private lateinit var repositoriesRootDir: File
+
     private lateinit var leaderboard: GitRepository
 
     private lateinit var repository: OmSolutionRepository
@@ -191,6 +200,21 @@ class OmSolutionRepositoryTest {
         }
     }
 
+    @Test
+    fun `published model is not changed by later submissions`() {
+        val score = dummyOmScore.copy(cost = 10, cycles = 20, area = 30)
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, score))
+        val published = repository.findCategoryHolders(OmPuzzle.STABILIZED_WATER, true)
+        val categories = published.first().categories.toSet()
+
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, dummyOmScore.copy(cost = 5, cycles = 5, area = 5)))
+
+        expectThat(published).hasSize(1).first().and {
+            get { record.score }.isEqualTo(score)
+            get { this.categories }.containsExactlyInAnyOrder(categories)
+        }
+    }
+
     @Test
     fun `data survives reload`() {
         repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, dummyOmScore.copy(cost = 10, cycles = 20, area = 30), displayLink = "https://some.gif"))
@@ -217,4 +241,69 @@ class OmSolutionRepositoryTest {
 
         newLeaderboard.cleanup()
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `reload picks up changes by other writers`() {
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, dummyOmScore.copy(cost = 10, cycles = 20, area = 30)))
+        repository.submit(dummyOmSubmission(OmPuzzle.FACE_POWDER, dummyOmScore.copy(cost = 10, cycles = 20, area = 30)))
+        val untouched = repository.findCategoryHolders(OmPuzzle.FACE_POWDER, true)
+
+        val otherRepository = OmSolutionRepository(leaderboard, mockk(relaxed = true), mockk(relaxed = true))
+        val better = dummyOmScore.copy(cost = 5, cycles = 5, area = 5)
+        otherRepository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, better))
+
+        expectThat(repository.findCategoryHolders(OmPuzzle.STABILIZED_WATER, true)).hasSize(1).first().get { record.score }.isEqualTo(better)
+        expectThat(repository.findCategoryHolders(OmPuzzle.FACE_POWDER, true)).isEqualTo(untouched)
+    }
+
+    @Test
+    fun `model snapshot is used on restart`() {
+        val score = dummyOmScore.copy(cost = 10, cycles = 20, area = 30)
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, score))
+
+        val persistentProperties = GitProperties().apply {
+            accessToken = ""
+            username = "zachtronics-bot-test"
+            repositoriesRoot = repositoriesRootDir.path
+        }
+        val buildInfo = org.springframework.boot.info.GitProperties(Properties().apply { setProperty("commit.id", "build") })
+        val persistentLeaderboard = TestGitRepository(persistentProperties, leaderboardDir)
+        OmSolutionRepository(persistentLeaderboard, mockk(relaxed = true), mockk(relaxed = true), buildInfo).apply { init() }
+        expectThat(persistentLeaderboard.persistentFile("om-model")).isNotNull().get { exists() }.isTrue()
+
+        // records are not parsed again when the snapshot matches the leaderboard
+        File(repositoriesRootDir, "${leaderboardDir.name}/${OmPuzzle.STABILIZED_WATER.group.name}/${OmPuzzle.STABILIZED_WATER.name}")
+            .listFiles { file -> file.extension == "json" }!!
+            .forEach { it.delete() }
+        val restarted = OmSolutionRepository(persistentLeaderboard, mockk(relaxed = true), mockk(relaxed = true), buildInfo).apply { init() }
+        expectThat(restarted.findCategoryHolders(OmPuzzle.STABILIZED_WATER, true)).hasSize(1).first().and {
+            get { record.score }.isEqualTo(score)
+            get { categories }.isEqualTo(repository.findCategoryHolders(OmPuzzle.STABILIZED_WATER, true).single().categories)
+        }
+
+        persistentLeaderboard.cleanup()
+    }
+
+    @Test
+    fun `page through record changes`() {
+        val since = Clock.System.now() - 1.minutes
+        val first = dummyOmScore.copy(cost = 10, cycles = 20, area = 30)
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, first))
+        val second = dummyOmScore.copy(cost = 5, cycles = 5, area = 5)
+        repository.submit(dummyOmSubmission(OmPuzzle.STABILIZED_WATER, second))
+        val third = dummyOmScore.copy(cost = 15, cycles = 25, area = 35)
+        repository.submit(dummyOmSubmission(OmPuzzle.FACE_POWDER, third))
+
+        // net changes: the first record was added and removed again within the range
+        val all = repository.computeChangesSince(since)
+        expectThat(all.nextCursor).isNull()
+        expectThat(all.changes.map { it.type to it.record.score }).containsExactlyInAnyOrder(
+            OmRecordChangeType.ADD to second, OmRecordChangeType.ADD to third
+        )
+
+        val paged = generateSequence(repository.computeChangesSince(since, limit = 1)) { page ->
+            page.nextCursor?.let { repository.computeChangesSince(since, it, 1) }
+        }.toList()
+        expectThat(paged.flatMap { it.changes }).isEqualTo(all.changes)
+    }
+}
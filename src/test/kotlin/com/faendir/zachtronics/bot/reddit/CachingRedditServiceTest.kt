@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.reddit
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.junit.jupiter.api.Test
+import strikt.api.expectThat
+import strikt.api.expectThrows
+import strikt.assertions.isEqualTo
+
+class CachingRedditServiceTest {
+    private class CountingRedditService : RedditService {
+        val pages = mutableMapOf<String, String>()
+        val revisions = mutableMapOf<String, Int>()
+        var gets = 0
+        var revisionReads = 0
+        var updates = 0
+        var fail = false
+
+        override fun getWikiPage(subreddit: Subreddit, page: String): String {
+            gets++
+            return pages[page] ?: ""
+        }
+
+        override fun getWikiPageRevision(subreddit: Subreddit, page: String): String {
+            revisionReads++
+            return revisions[page].toString()
+        }
+
+        override fun updateWikiPage(subreddit: Subreddit, page: String, content: String, reason: String) {
+            updates++
+            if (fail) throw IllegalStateException("reddit is down")
+            edit(page, content)
+        }
+
+        override fun postInSubmission(submissionId: String, content: String) {}
+
+        fun edit(page: String, content: String) {
+            pages[page] = content
+            revisions.merge(page, 1, Int::plus)
+        }
+    }
+
+    private val delegate = CountingRedditService()
+    private val reddit = CachingRedditService(delegate, SimpleMeterRegistry())
+
+    @Test
+    fun `should serve unchanged pages from the cache`() {
+        delegate.edit("index", "content")
+        expectThat(reddit.getWikiPage(Subreddit.SPACECHEM, "index")).isEqualTo("content")
+        expectThat(reddit.getWikiPage(Subreddit.SPACECHEM, "index")).isEqualTo("content")
+        expectThat(delegate.gets).isEqualTo(1)
+    }
+
+    @Test
+    fun `should serve uploaded pages from the cache`() {
+        delegate.edit("index", "content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        reddit.updateWikiPage(Subreddit.SPACECHEM, "index", "new content", "change")
+        expectThat(reddit.getWikiPage(Subreddit.SPACECHEM, "index")).isEqualTo("new content")
+        expectThat(delegate.gets).isEqualTo(1)
+    }
+
+    @Test
+    fun `should upload changed content without checking the revision first`() {
+        delegate.edit("index", "content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        delegate.revisionReads = 0
+        reddit.updateWikiPage(Subreddit.SPACECHEM, "index", "new content", "change")
+        expectThat(delegate.updates).isEqualTo(1)
+        // only the revision of our own upload is read
+        expectThat(delegate.revisionReads).isEqualTo(1)
+    }
+
+    @Test
+    fun `should skip uploads that change nothing`() {
+        delegate.edit("index", "content\r\nmore content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        reddit.updateWikiPage(Subreddit.SPACECHEM, "index", "content\nmore content", "rebuild")
+        expectThat(delegate.updates).isEqualTo(0)
+    }
+
+    @Test
+    fun `should see manual edits right away`() {
+        delegate.edit("index", "content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        delegate.edit("index", "manual edit")
+        expectThat(reddit.getWikiPage(Subreddit.SPACECHEM, "index")).isEqualTo("manual edit")
+        expectThat(delegate.gets).isEqualTo(2)
+    }
+
+    @Test
+    fun `should not skip uploads over manual edits`() {
+        delegate.edit("index", "content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        delegate.edit("index", "manual edit")
+        reddit.updateWikiPage(Subreddit.SPACECHEM, "index", "content", "rebuild")
+        expectThat(delegate.updates).isEqualTo(1)
+    }
+
+    @Test
+    fun `should forget pages whose upload failed`() {
+        delegate.edit("index", "content")
+        reddit.getWikiPage(Subreddit.SPACECHEM, "index")
+        delegate.fail = true
+        expectThrows<IllegalStateException> { reddit.updateWikiPage(Subreddit.SPACECHEM, "index", "new content", "change") }
+        expectThat(reddit.getWikiPage(Subreddit.SPACECHEM, "index")).isEqualTo("content")
+        expectThat(delegate.gets).isEqualTo(2)
+    }
+}
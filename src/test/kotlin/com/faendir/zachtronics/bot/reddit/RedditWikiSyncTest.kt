@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.faendir.zachtronics.bot.reddit
+
+import com.faendir.zachtronics.bot.config.RedditProperties
+import org.junit.jupiter.api.Test
+import strikt.api.expectThat
+import strikt.api.expectThrows
+import strikt.assertions.containsExactly
+import strikt.assertions.isEmpty
+import strikt.assertions.isEqualTo
+import strikt.assertions.isTrue
+import java.time.Duration
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class RedditWikiSyncTest {
+    private class RecordingRedditService : RedditService {
+        val pages = mutableMapOf<String, String>()
+        val reasons = mutableListOf<String>()
+        val uploaded = CountDownLatch(1)
+        /** uploads that fail before reddit recovers */
+        @Volatile
+        var outage = 0
+
+        override fun getWikiPage(subreddit: Subreddit, page: String) = synchronized(this) { pages[page] ?: "" }
+
+        override fun updateWikiPage(subreddit: Subreddit, page: String, content: String, reason: String) {
+            if (content == "fail") throw IllegalStateException("upload of $page failed")
+            if (outage > 0) {
+                outage--
+                throw IllegalStateException("reddit is down")
+            }
+            synchronized(this) {
+                pages[page] = content
+                reasons += reason
+            }
+            uploaded.countDown()
+        }
+
+        override fun postInSubmission(submissionId: String, content: String) {}
+    }
+
+    private fun properties(quietPeriod: Duration) = RedditProperties().apply {
+        wikiSyncQuietPeriod = quietPeriod
+        wikiUploadsPerSecond = 1000.0
+    }
+
+    @Test
+    fun `should coalesce changes to a page into a single upload`() {
+        val reddit = RecordingRedditService()
+        val sync = RedditWikiSync(reddit, properties(Duration.ofMillis(500)))
+        val renders = AtomicInteger()
+        for (i in 1..5) {
+            sync.markDirty(Subreddit.SPACECHEM, "index", "change $i") { current -> renders.incrementAndGet(); "$current+" }
+        }
+
+        expectThat(reddit.uploaded.await(10, TimeUnit.SECONDS)).isTrue()
+        sync.shutdown()
+        expectThat(renders.get()).isEqualTo(1)
+        expectThat(reddit.pages).isEqualTo(mapOf("index" to "+"))
+        expectThat(reddit.reasons).containsExactly("change 1; change 2; change 3 and 2 more")
+    }
+
+    @Test
+    fun `should not upload unchanged pages`() {
+        val reddit = RecordingRedditService()
+        reddit.pages["index"] = "content\r\nmore content"
+        val sync = RedditWikiSync(reddit, properties(Duration.ofMinutes(1)))
+        sync.syncNow(Subreddit.SPACECHEM, "index", "rebuild") { "content\nmore content" }
+        sync.shutdown()
+        expectThat(reddit.reasons).isEmpty()
+    }
+
+    @Test
+    fun `should sync pending pages on shutdown`() {
+        val reddit = RecordingRedditService()
+        val sync = RedditWikiSync(reddit, properties(Duration.ofMinutes(1)))
+        sync.markDirty(Subreddit.SPACECHEM, "index", "change") { "new content" }
+        sync.shutdown()
+        expectThat(reddit.pages).isEqualTo(mapOf("index" to "new content"))
+    }
+
+    @Test
+    fun `should retry pages whose sync failed`() {
+        val reddit = RecordingRedditService()
+        reddit.outage = 1
+        val sync = RedditWikiSync(reddit, properties(Duration.ofMillis(100)))
+        sync.markDirty(Subreddit.SPACECHEM, "index", "change") { "new content" }
+        expectThat(reddit.uploaded.await(10, TimeUnit.SECONDS)).isTrue()
+        sync.shutdown()
+        expectThat(reddit.pages).isEqualTo(mapOf("index" to "new content"))
+        expectThat(reddit.reasons).containsExactly("change")
+    }
+
+    @Test
+    fun `should sync all pages and report progress`() {
+        val reddit = RecordingRedditService()
+        reddit.pages["b"] = "b"
+        val sync = RedditWikiSync(reddit, properties(Duration.ofMinutes(1)))
+        sync.markDirty(Subreddit.SPACECHEM, "a", "change") { "stale" }
+        val progress = Collections.synchronizedList(mutableListOf<Int>())
+        val pages = listOf("a", "b", "c", "d")
+        val failure = expectThrows<IllegalStateException> {
+            sync.syncAll(Subreddit.SPACECHEM, pages, "rebuild", { page, current -> if (page == "d") "fail" else "$current$page" }) { done, total ->
+                expectThat(total).isEqualTo(4)
+                progress += done
+            }
+        }
+        sync.shutdown()
+        failure.get { message }.isEqualTo("upload of d failed")
+        expectThat(progress).containsExactly(1, 2, 3, 4)
+        expectThat(reddit.pages).isEqualTo(mapOf("a" to "a", "b" to "bb", "c" to "c"))
+        expectThat(reddit.reasons.sorted()).containsExactly("rebuild", "rebuild", "rebuild; change")
+    }
+}